@@ -6,9 +6,14 @@ import lombok.Setter;
 import lombok.experimental.Accessors;
 import me.clip.placeholderapi.PlaceholderAPI;
 import me.croabeast.beanslib.character.SmallCaps;
+import me.croabeast.beanslib.discord.WebhookOutbox;
+import me.croabeast.beanslib.discord.WebhookTemplate;
 import me.croabeast.beanslib.key.PlayerKey;
 import me.croabeast.beanslib.message.CenteredMessage;
+import me.croabeast.beanslib.message.CompiledMessages;
+import me.croabeast.beanslib.misc.AsyncAppender;
 import me.croabeast.beanslib.misc.BeansLogger;
+import me.croabeast.beanslib.misc.RenderMetrics;
 import me.croabeast.beanslib.utility.TextUtils;
 import me.croabeast.neoprismatic.NeoPrismaticAPI;
 import org.apache.commons.lang.StringUtils;
@@ -23,6 +28,7 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.Objects;
 import java.util.function.Function;
+import java.util.function.UnaryOperator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -131,6 +137,12 @@ public class BeansLib {
      */
     private ConfigurationSection bossbarSection = null;
 
+    @Getter(AccessLevel.NONE)
+    private final PatternCache charCache = new PatternCache(s -> s),
+            bossbarCache = new PatternCache(s -> "(?i)^ *?" + s + " *?$"),
+            blankCache = new PatternCache(s -> "(?i)^ *?" + s + " *?$"),
+            smallCapsCache = new PatternCache(s -> "(?i)" + s);
+
     BeansLib(@Nullable Plugin plugin, boolean load) {
         this.plugin = plugin;
         logger = new BeansLogger(this);
@@ -202,6 +214,31 @@ public class BeansLib {
                 string.replace(getLangPrefixKey(), remove ? "" : getLangPrefix());
     }
 
+    /**
+     * Sets the {@link ConfigurationSection} object to get all the available webhooks,
+     * and clears the compiled {@link WebhookTemplate} templates.
+     *
+     * @param section the webhook section, can be null
+     * @return a reference of this object
+     */
+    public BeansLib setWebhookSection(ConfigurationSection section) {
+        webhookSection = section;
+        WebhookTemplate.invalidate();
+        return this;
+    }
+
+    /**
+     * Returns a hash of the settings that change how message lines are pre-processed:
+     * the prefix and its key, and the blank-space and bossbar regexes.
+     *
+     * <p> Used by {@link CompiledMessages} to know when its compiled lines are outdated.
+     *
+     * @return the hash of the settings
+     */
+    public int getSettingsHash() {
+        return Objects.hash(langPrefix, langPrefixKey, blankSpaceRegex, bossbarRegex);
+    }
+
     /**
      * Creates a new string array from an input string using the {@link #lineSeparator}
      * as a split for the array.
@@ -229,42 +266,43 @@ public class BeansLib {
     }
 
     /**
-     * Creates a new {@link Pattern} instance using the defined char regex string.
+     * Returns the {@link Pattern} instance of the defined char regex string.
+     * The pattern is compiled again only when the regex changes.
      *
      * @return the requested pattern
      */
     public Pattern getCharPattern() {
-        return Pattern.compile(charRegex);
+        return charCache.get(charRegex);
     }
 
     /**
-     * Creates a new {@link Pattern} instance using the defined custom bossbar
-     * internal placeholder.
+     * Returns the {@link Pattern} instance of the defined custom bossbar
+     * internal placeholder. The pattern is compiled again only when the regex changes.
      *
      * @return the requested pattern
      */
     public Pattern getBossbarPattern() {
-        return Pattern.compile("(?i)^ *?" + bossbarRegex + " *?$");
+        return bossbarCache.get(bossbarRegex);
     }
 
     /**
-     * Creates a new {@link Pattern} instance using the defined blank-space
-     * internal placeholder.
+     * Returns the {@link Pattern} instance of the defined blank-space
+     * internal placeholder. The pattern is compiled again only when the regex changes.
      *
      * @return the requested pattern
      */
     public Pattern getBlankPattern() {
-        return Pattern.compile("(?i)^ *?" + blankSpaceRegex + " *?$");
+        return blankCache.get(blankSpaceRegex);
     }
 
     /**
-     * Creates a new {@link Pattern} instance using the defined SmallCaps
-     * internal placeholder.
+     * Returns the {@link Pattern} instance of the defined SmallCaps
+     * internal placeholder. The pattern is compiled again only when the regex changes.
      *
      * @return the requested pattern
      */
     public Pattern getSmallCapsPattern() {
-        return Pattern.compile("(?i)" + smallCapsPattern);
+        return smallCapsCache.get(smallCapsPattern);
     }
 
     /**
@@ -307,8 +345,13 @@ public class BeansLib {
     }
 
     public String formatPlaceholders(@Nullable Player parser, String string) {
+        final long start = RenderMetrics.start();
+
         string = PlayerKey.replaceKeys(parser, string);
-        return TextUtils.PARSE_PLACEHOLDERAPI.apply(parser, parseChars(string));
+        string = TextUtils.PARSE_PLACEHOLDERAPI.apply(parser, parseChars(string));
+
+        RenderMetrics.record(RenderMetrics.Stage.PLACEHOLDERS, start);
+        return string;
     }
 
     /**
@@ -323,7 +366,13 @@ public class BeansLib {
      */
     public String colorize(Player target, Player parser, String string) {
         if (target == null) target = parser;
-        return NeoPrismaticAPI.colorize(target, formatPlaceholders(parser, string));
+        string = formatPlaceholders(parser, string);
+
+        final long start = RenderMetrics.start();
+        string = NeoPrismaticAPI.colorize(target, string);
+
+        RenderMetrics.record(RenderMetrics.Stage.COLORIZE, start);
+        return string;
     }
 
     /**
@@ -427,6 +476,44 @@ public class BeansLib {
         return parsePlayerKeys(parser, string, false);
     }
 
+    /**
+     * Enables the asynchronous console output of the lib logger. Lines are colorized
+     * and written by a single consumer thread using a bounded ring buffer, that is
+     * flushed automatically when the plugin is disabled.
+     *
+     * @param capacity the capacity of the buffer
+     * @param overflow the policy to use when the buffer is full
+     *
+     * @return a reference of this object
+     */
+    public BeansLib enableAsyncLogging(int capacity, AsyncAppender.Overflow overflow) {
+        logger.enableAsync(capacity, overflow);
+        return this;
+    }
+
+    /**
+     * Flushes and disables the asynchronous console output of the lib logger.
+     *
+     * @return a reference of this object
+     */
+    public BeansLib disableAsyncLogging() {
+        logger.disableAsync();
+        return this;
+    }
+
+    /**
+     * Enables the persistent outbox of the webhooks in the data folder of the plugin.
+     * The webhook requests that could not be delivered are stored in a file and sent
+     * again when Discord is reachable, including the ones stored in the last run.
+     *
+     * @return a reference of this object
+     * @see WebhookOutbox
+     */
+    public BeansLib enableWebhookOutbox() {
+        WebhookOutbox.enable(getPlugin());
+        return this;
+    }
+
     /**
      * Logs a list of messages to a player only, if not null.
      * <p> The messages are formatted and colorized according to this BeansLib settings.
@@ -519,4 +606,23 @@ public class BeansLib {
         BeansLib lib = (BeansLib) o;
         return Objects.equals(lib.plugin, plugin);
     }
+
+    private static class PatternCache {
+
+        private final UnaryOperator<String> wrapper;
+        private volatile Object[] cached = null;
+
+        private PatternCache(UnaryOperator<String> wrapper) {
+            this.wrapper = wrapper;
+        }
+
+        private Pattern get(String regex) {
+            Object[] c = cached;
+
+            if (c == null || c[0] != regex)
+                cached = c = new Object[] {regex, Pattern.compile(wrapper.apply(regex))};
+
+            return (Pattern) c[1];
+        }
+    }
 }
@@ -0,0 +1,171 @@
+package me.croabeast.beanslib.applier;
+
+import me.croabeast.beanslib.Beans;
+import me.croabeast.beanslib.character.FontTransform;
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Represents an operator that edits a {@link TextBuffer} in place, instead of returning
+ * a new string like a {@link java.util.function.UnaryOperator}.
+ *
+ * <p> It has buffer-native versions of the built-in string operators of the lib, so many
+ * of them can be applied to the same text with a single final {@code toString}.
+ *
+ * <pre> {@code
+ * String result = StringApplier.simplified(string)
+ *         .applyBuffer(BufferOperator.prefixKey(false))
+ *         .applyBuffer(BufferOperator.smallCaps())
+ *         .applyBuffer(BufferOperator.stripFirstSpaces())
+ *         .toString();
+ * } </pre>
+ *
+ * @author CroaBeast
+ * @since 1.4
+ */
+@FunctionalInterface
+public interface BufferOperator {
+
+    /**
+     * Edits the buffer in place.
+     *
+     * @param buffer the buffer
+     */
+    void apply(@NotNull TextBuffer buffer);
+
+    /**
+     * Returns an operator that applies this operator, then another one.
+     *
+     * @param after the operator to apply after this one
+     * @return the composed operator
+     */
+    @NotNull
+    default BufferOperator andThen(@NotNull BufferOperator after) {
+        Objects.requireNonNull(after);
+        return b -> {
+            apply(b);
+            after.apply(b);
+        };
+    }
+
+    /**
+     * Replaces the prefix key of the lib with the prefix, or removes it.
+     *
+     * @param remove if the key should be removed instead
+     * @return the operator
+     *
+     * @see Beans#replacePrefixKey(String, boolean)
+     */
+    @NotNull
+    static BufferOperator prefixKey(boolean remove) {
+        return b -> {
+            String key = Beans.getLangPrefixKey();
+            if (b.isBlank() || StringUtils.isEmpty(key)) return;
+
+            b.replaceAll(key, remove ? "" : Beans.getLangPrefix(), false);
+        };
+    }
+
+    /**
+     * Converts the text inside the small caps tags of the lib to small caps characters,
+     * removing the tags.
+     *
+     * @return the operator
+     *
+     * @see Beans#convertToSmallCaps(String)
+     */
+    @NotNull
+    static BufferOperator smallCaps() {
+        return b -> {
+            if (b.isBlank()) return;
+
+            Pattern pattern = Beans.getSmallCapsPattern();
+            Matcher matcher = pattern.matcher(b);
+
+            List<int[]> matches = new ArrayList<>();
+
+            while (matcher.find())
+                matches.add(new int[] {
+                        matcher.start(), matcher.start(2),
+                        matcher.end(2), matcher.end()
+                });
+
+            for (int i = matches.size() - 1; i >= 0; i--) {
+                int[] m = matches.get(i);
+
+                b.delete(m[2], m[3]);
+                b.map(m[1], m[2], c -> FontTransform.SMALL_CAPS.apply((char) c));
+                b.delete(m[0], m[1]);
+            }
+        };
+    }
+
+    /**
+     * Strips the first spaces of the text, unless it only has spaces.
+     *
+     * @return the operator
+     *
+     * @see me.croabeast.beanslib.utility.TextUtils#STRIP_FIRST_SPACES
+     */
+    @NotNull
+    static BufferOperator stripFirstSpaces() {
+        return b -> {
+            if (b.isBlank()) return;
+
+            int count = 0;
+            while (b.charAt(count) == ' ') count++;
+
+            if (count > 0) b.delete(0, count);
+        };
+    }
+
+    /**
+     * Replaces keys with their values.
+     *
+     * @param keys the keys
+     * @param values the values, at least the same amount as the keys
+     * @param sensitive if the keys are case-sensitive
+     *
+     * @return the operator
+     */
+    @NotNull
+    static BufferOperator replaceKeys(String[] keys, Object[] values, boolean sensitive) {
+        Objects.requireNonNull(keys);
+        Objects.requireNonNull(values);
+
+        if (keys.length > values.length)
+            throw new IllegalArgumentException("There are more keys than values");
+
+        return b -> {
+            for (int i = 0; i < keys.length; i++) {
+                if (StringUtils.isBlank(keys[i]) || values[i] == null) continue;
+                b.replaceAll(keys[i], String.valueOf(values[i]), !sensitive);
+            }
+        };
+    }
+
+    /**
+     * Replaces keys with their values.
+     *
+     * @param map the values, by key
+     * @param sensitive if the keys are case-sensitive
+     *
+     * @return the operator
+     */
+    @NotNull
+    static BufferOperator replaceKeys(Map<String, ?> map, boolean sensitive) {
+        Objects.requireNonNull(map);
+
+        return b -> map.forEach((k, v) -> {
+            if (StringUtils.isBlank(k) || v == null) return;
+            b.replaceAll(k, String.valueOf(v), !sensitive);
+        });
+    }
+}
@@ -7,7 +7,9 @@ import java.util.function.UnaryOperator;
 
 class PriorityApplier implements StringApplier {
 
-    final Map<Priority, Set<UnaryOperator<String>>> os = new HashMap<>();
+    private static final Priority[] ORDER = Priority.values();
+
+    final Map<Priority, Set<UnaryOperator<String>>> os = new EnumMap<>(Priority.class);
     private final String string;
 
     PriorityApplier(String string) {
@@ -19,10 +21,7 @@ class PriorityApplier implements StringApplier {
         priority = priority == null ? Priority.NORMAL : priority;
         Objects.requireNonNull(operator);
 
-        Set<UnaryOperator<String>> set = os.getOrDefault(priority, new LinkedHashSet<>());
-        set.add(operator);
-
-        os.put(priority, set);
+        os.computeIfAbsent(priority, p -> new LinkedHashSet<>()).add(operator);
         return this;
     }
 
@@ -33,13 +32,16 @@ class PriorityApplier implements StringApplier {
 
     @Override
     public String toString() {
-        Comparator<Priority> sort = Comparator.reverseOrder();
-        SimpleApplier applier = new SimpleApplier(string);
+        String result = string;
+
+        for (int i = ORDER.length - 1; i >= 0; i--) {
+            Set<UnaryOperator<String>> set = os.get(ORDER[i]);
+            if (set == null) continue;
 
-        Map<Priority, Set<UnaryOperator<String>>> result = new TreeMap<>(sort);
-        result.putAll(os);
+            for (UnaryOperator<String> operator : set)
+                result = operator.apply(result);
+        }
 
-        result.forEach((p, s) -> s.forEach(applier::apply));
-        return applier.toString();
+        return result;
     }
 }
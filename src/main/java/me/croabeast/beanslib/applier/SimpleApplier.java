@@ -8,6 +8,7 @@ import java.util.function.UnaryOperator;
 class SimpleApplier implements StringApplier {
 
     private String string;
+    private TextBuffer buffer = null;
 
     SimpleApplier(String string) {
         this.string = Objects.requireNonNull(string);
@@ -20,12 +21,32 @@ class SimpleApplier implements StringApplier {
 
     @NotNull
     public SimpleApplier apply(UnaryOperator<String> operator) {
-        string = Objects.requireNonNull(operator).apply(string);
+        string = Objects.requireNonNull(operator).apply(toString());
         return this;
     }
 
+    @NotNull
+    public SimpleApplier applyBuffer(Priority priority, BufferOperator operator) {
+        Objects.requireNonNull(operator);
+
+        if (buffer == null) buffer = new TextBuffer(string);
+
+        operator.apply(buffer);
+        return this;
+    }
+
+    @NotNull
+    public SimpleApplier applyBuffer(BufferOperator operator) {
+        return applyBuffer(null, operator);
+    }
+
     @Override
     public String toString() {
+        if (buffer != null) {
+            if (buffer.getModifications() > 0)
+                string = buffer.toString();
+            buffer = null;
+        }
         return string;
     }
 }
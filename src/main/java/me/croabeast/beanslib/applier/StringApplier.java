@@ -43,6 +43,44 @@ public interface StringApplier {
     @NotNull
     StringApplier apply(UnaryOperator<String> operator);
 
+    /**
+     * Applies a buffer operator with the defined priority, like {@link #apply(Priority, UnaryOperator)}.
+     *
+     * <p> Non-prioritized appliers keep a single {@link TextBuffer} for consecutive buffer
+     * operators, so the string is only created again when it's requested or a string
+     * operator is applied.
+     *
+     * @param priority the priority
+     * @param operator the buffer operator
+     *
+     * @throws NullPointerException if the operator is null
+     * @return a reference of this applier
+     */
+    @NotNull
+    default StringApplier applyBuffer(Priority priority, BufferOperator operator) {
+        Objects.requireNonNull(operator);
+
+        return apply(priority, s -> {
+            TextBuffer buffer = new TextBuffer(s);
+            operator.apply(buffer);
+
+            return buffer.getModifications() == 0 ? s : buffer.toString();
+        });
+    }
+
+    /**
+     * Applies a buffer operator, like {@link #apply(UnaryOperator)}.
+     *
+     * @param operator the buffer operator
+     *
+     * @throws NullPointerException if the operator is null
+     * @return a reference of this applier
+     */
+    @NotNull
+    default StringApplier applyBuffer(BufferOperator operator) {
+        return applyBuffer(null, operator);
+    }
+
     /**
      * Returns the string after all the operators were applied.
      *
@@ -114,6 +152,19 @@ public interface StringApplier {
         return prioritized(Objects.requireNonNull(applier).toString());
     }
 
+    /**
+     * Creates a new builder of an immutable and reusable {@link StringPipeline}.
+     *
+     * <p> The priorities of the operators are resolved once, when the pipeline is built,
+     * and the pipeline can be applied to any amount of strings.
+     *
+     * @param <T> the type of the context object of the operators
+     * @return a new pipeline builder
+     */
+    static <T> StringPipeline.Builder<T> pipeline() {
+        return new StringPipeline.Builder<>();
+    }
+
     /**
      * An enum that represents the priority of an operator used in {@link StringApplier}.
      */
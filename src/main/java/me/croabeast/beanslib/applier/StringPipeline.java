@@ -0,0 +1,387 @@
+package me.croabeast.beanslib.applier;
+
+import me.croabeast.beanslib.applier.StringApplier.Priority;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * An immutable, reusable chain of string operators, created using {@link StringApplier#pipeline()}.
+ *
+ * <p> Unlike a {@link StringApplier}, a pipeline is built once and applied to any amount
+ * of strings, from any thread. The order of its operators is fixed when it's built: higher
+ * priorities first, and operators with the same priority in the order they were added.
+ *
+ * <p> Operators can receive a context object, like the player that parses the string, so
+ * the same pipeline can be used for different players without creating new operators.
+ *
+ * <pre> {@code
+ * StringPipeline<Player> pipeline = StringApplier.<Player>pipeline()
+ *         .apply(Priority.HIGH, (p, s) -> PlayerKey.replaceKeys(p, s))
+ *         .apply(String::trim)
+ *         .timed(true)
+ *         .build();
+ *
+ * String result = pipeline.apply(player, string);
+ * } </pre>
+ *
+ * @param <T> the type of the context object
+ *
+ * @author CroaBeast
+ * @since 1.4
+ */
+public final class StringPipeline<T> {
+
+    private static final Comparator<Stage<?>> ORDER =
+            Comparator.comparing((Stage<?> s) -> s.priority).reversed();
+
+    private final Stage<T>[] stages;
+
+    private final AtomicLongArray nanos, calls;
+
+    @SuppressWarnings("unchecked")
+    private StringPipeline(Builder<T> builder) {
+        List<Stage<T>> list = new ArrayList<>(builder.stages);
+        list.sort(ORDER);
+
+        stages = list.toArray(new Stage[0]);
+
+        nanos = builder.timed ? new AtomicLongArray(stages.length) : null;
+        calls = builder.timed ? new AtomicLongArray(stages.length) : null;
+    }
+
+    /**
+     * Applies all the operators of this pipeline to a string.
+     *
+     * <p> Consecutive buffer operators share a single {@link TextBuffer}, so the string
+     * is only created again before a string operator and at the end.
+     *
+     * <p> Operators added with {@link Builder#applyIfChanged(Priority, BiFunction)} are
+     * skipped if no previous operator changed the string. A string is considered changed
+     * if an operator returns a different instance than its input, or modifies its buffer.
+     *
+     * @param context the context object, can be null
+     * @param string a string, can be null
+     *
+     * @return the applied string, or null if the string is null
+     */
+    public String apply(T context, String string) {
+        if (string == null) return null;
+
+        final String input = string;
+        TextBuffer buffer = null;
+
+        for (int i = 0; i < stages.length; i++) {
+            Stage<T> stage = stages[i];
+
+            if (stage.ifChanged && string == input &&
+                    (buffer == null || buffer.getModifications() == 0))
+                continue;
+
+            final long start = nanos == null ? 0 : System.nanoTime();
+
+            if (stage.buffered != null) {
+                if (buffer == null) buffer = new TextBuffer(string);
+                stage.buffered.accept(context, buffer);
+            }
+            else {
+                if (buffer != null) {
+                    if (buffer.getModifications() > 0) string = buffer.toString();
+                    buffer = null;
+                }
+
+                string = Objects.requireNonNull(stage.function.apply(context, string));
+            }
+
+            if (nanos == null) continue;
+
+            nanos.addAndGet(i, System.nanoTime() - start);
+            calls.incrementAndGet(i);
+        }
+
+        return buffer != null && buffer.getModifications() > 0 ? buffer.toString() : string;
+    }
+
+    /**
+     * Applies all the operators of this pipeline to a string, without a context object.
+     *
+     * @param string a string, can be null
+     * @return the applied string, or null if the string is null
+     */
+    public String apply(String string) {
+        return apply(null, string);
+    }
+
+    /**
+     * Returns the amount of operators of this pipeline.
+     *
+     * @return the amount of operators
+     */
+    public int size() {
+        return stages.length;
+    }
+
+    /**
+     * Checks if this pipeline measures the time spent in every operator.
+     *
+     * @return true if timed, false otherwise
+     */
+    public boolean isTimed() {
+        return nanos != null;
+    }
+
+    /**
+     * Returns the total time spent in every operator, in nanoseconds, by operator name
+     * and in the order they are applied. Empty if this pipeline is not timed.
+     *
+     * @return the total time of every operator
+     */
+    @NotNull
+    public Map<String, Long> getTimings() {
+        if (nanos == null) return new LinkedHashMap<>();
+
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (int i = 0; i < stages.length; i++)
+            map.merge(stages[i].name, nanos.get(i), Long::sum);
+
+        return map;
+    }
+
+    /**
+     * Returns the amount of times every operator was applied, by operator name and in
+     * the order they are applied. Empty if this pipeline is not timed.
+     *
+     * @return the amount of calls of every operator
+     */
+    @NotNull
+    public Map<String, Long> getCalls() {
+        if (calls == null) return new LinkedHashMap<>();
+
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (int i = 0; i < stages.length; i++)
+            map.merge(stages[i].name, calls.get(i), Long::sum);
+
+        return map;
+    }
+
+    /**
+     * Resets the timings of every operator to zero.
+     */
+    public void resetTimings() {
+        if (nanos == null) return;
+
+        for (int i = 0; i < stages.length; i++) {
+            nanos.set(i, 0);
+            calls.set(i, 0);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "StringPipeline[", "]");
+        for (Stage<T> stage : stages) joiner.add(stage.name);
+
+        return joiner.toString();
+    }
+
+    private static class Stage<T> {
+
+        private final String name;
+        private final Priority priority;
+        private final BiFunction<? super T, String, String> function;
+        private final BiConsumer<? super T, TextBuffer> buffered;
+        private final boolean ifChanged;
+
+        private Stage(String name, Priority priority, BiFunction<? super T, String, String> function,
+                      BiConsumer<? super T, TextBuffer> buffered, boolean ifChanged)
+        {
+            this.name = name;
+            this.priority = priority == null ? Priority.NORMAL : priority;
+
+            if (function == null && buffered == null)
+                throw new NullPointerException("Operator is null");
+
+            this.function = function;
+            this.buffered = buffered;
+            this.ifChanged = ifChanged;
+        }
+    }
+
+    /**
+     * The builder of a {@link StringPipeline}.
+     *
+     * @param <T> the type of the context object
+     */
+    public static final class Builder<T> {
+
+        private final List<Stage<T>> stages = new ArrayList<>();
+        private boolean timed = false;
+
+        Builder() {}
+
+        private Builder<T> add(String name, Priority priority, BiFunction<? super T, String, String> function, boolean ifChanged) {
+            if (name == null) name = "stage-" + stages.size();
+
+            stages.add(new Stage<>(name, priority, Objects.requireNonNull(function), null, ifChanged));
+            return this;
+        }
+
+        /**
+         * Adds a named buffer operator with a defined priority.
+         *
+         * @param name the name of the operator in the timings, can be null
+         * @param priority the priority, {@link Priority#NORMAL} if null
+         * @param operator the operator, receiving the context object and the buffer
+         *
+         * @throws NullPointerException if the operator is null
+         * @return a reference of this builder
+         */
+        @NotNull
+        public Builder<T> applyBuffer(String name, Priority priority, BiConsumer<? super T, TextBuffer> operator) {
+            if (name == null) name = "stage-" + stages.size();
+
+            stages.add(new Stage<>(name, priority, null, Objects.requireNonNull(operator), false));
+            return this;
+        }
+
+        /**
+         * Adds a buffer operator that doesn't use the context object, with a defined priority.
+         *
+         * @param priority the priority, {@link Priority#NORMAL} if null
+         * @param operator the buffer operator
+         *
+         * @throws NullPointerException if the operator is null
+         * @return a reference of this builder
+         */
+        @NotNull
+        public Builder<T> applyBuffer(Priority priority, BufferOperator operator) {
+            Objects.requireNonNull(operator);
+            return applyBuffer(null, priority, (t, b) -> operator.apply(b));
+        }
+
+        /**
+         * Adds a buffer operator that doesn't use the context object, with the
+         * {@link Priority#NORMAL} priority.
+         *
+         * @param operator the buffer operator
+         *
+         * @throws NullPointerException if the operator is null
+         * @return a reference of this builder
+         */
+        @NotNull
+        public Builder<T> applyBuffer(BufferOperator operator) {
+            return applyBuffer(null, operator);
+        }
+
+        /**
+         * Adds a named operator with a defined priority.
+         *
+         * @param name the name of the operator in the timings, can be null
+         * @param priority the priority, {@link Priority#NORMAL} if null
+         * @param function the operator, receiving the context object and the string
+         *
+         * @throws NullPointerException if the operator is null
+         * @return a reference of this builder
+         */
+        @NotNull
+        public Builder<T> apply(String name, Priority priority, BiFunction<? super T, String, String> function) {
+            return add(name, priority, function, false);
+        }
+
+        /**
+         * Adds an operator with a defined priority.
+         *
+         * @param priority the priority, {@link Priority#NORMAL} if null
+         * @param function the operator, receiving the context object and the string
+         *
+         * @throws NullPointerException if the operator is null
+         * @return a reference of this builder
+         */
+        @NotNull
+        public Builder<T> apply(Priority priority, BiFunction<? super T, String, String> function) {
+            return add(null, priority, function, false);
+        }
+
+        /**
+         * Adds an operator with the {@link Priority#NORMAL} priority.
+         *
+         * @param function the operator, receiving the context object and the string
+         *
+         * @throws NullPointerException if the operator is null
+         * @return a reference of this builder
+         */
+        @NotNull
+        public Builder<T> apply(BiFunction<? super T, String, String> function) {
+            return add(null, null, function, false);
+        }
+
+        /**
+         * Adds an operator that doesn't use the context object, with a defined priority.
+         *
+         * @param priority the priority, {@link Priority#NORMAL} if null
+         * @param operator the operator
+         *
+         * @throws NullPointerException if the operator is null
+         * @return a reference of this builder
+         */
+        @NotNull
+        public Builder<T> apply(Priority priority, UnaryOperator<String> operator) {
+            Objects.requireNonNull(operator);
+            return add(null, priority, (t, s) -> operator.apply(s), false);
+        }
+
+        /**
+         * Adds an operator that doesn't use the context object, with the
+         * {@link Priority#NORMAL} priority.
+         *
+         * @param operator the operator
+         *
+         * @throws NullPointerException if the operator is null
+         * @return a reference of this builder
+         */
+        @NotNull
+        public Builder<T> apply(UnaryOperator<String> operator) {
+            return apply(null, operator);
+        }
+
+        /**
+         * Adds an operator that is only applied if a previous operator changed the string.
+         *
+         * @param priority the priority, {@link Priority#NORMAL} if null
+         * @param function the operator, receiving the context object and the string
+         *
+         * @throws NullPointerException if the operator is null
+         * @return a reference of this builder
+         */
+        @NotNull
+        public Builder<T> applyIfChanged(Priority priority, BiFunction<? super T, String, String> function) {
+            return add(null, priority, function, true);
+        }
+
+        /**
+         * Sets if the pipeline will measure the time spent in every operator.
+         *
+         * @param timed if the pipeline is timed
+         * @return a reference of this builder
+         */
+        @NotNull
+        public Builder<T> timed(boolean timed) {
+            this.timed = timed;
+            return this;
+        }
+
+        /**
+         * Builds an immutable pipeline with the added operators.
+         *
+         * @return a new pipeline
+         */
+        @NotNull
+        public StringPipeline<T> build() {
+            return new StringPipeline<>(this);
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package me.croabeast.beanslib.applier;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A mutable, char-array backed text that {@link BufferOperator} instances edit in place.
+ *
+ * <p> Unlike strings, editing a buffer doesn't create a new copy of the text on every
+ * change, so many operators can be applied to the same text and converted to a string
+ * only once at the end.
+ *
+ * <pre> {@code
+ * TextBuffer buffer = new TextBuffer("{prefix} Hello {player}");
+ *
+ * buffer.replaceAll("{prefix}", "&eServer &8»&7", false);
+ * buffer.replaceAll("{player}", player.getName(), true);
+ *
+ * String result = buffer.toString();
+ * } </pre>
+ *
+ * <p> Buffers are not thread-safe.
+ *
+ * @author CroaBeast
+ * @since 1.4
+ */
+public final class TextBuffer implements CharSequence {
+
+    private char[] value;
+    private int length;
+
+    private int modifications = 0;
+
+    /**
+     * Creates a new buffer with the characters of a string.
+     *
+     * @param string a string, can not be null
+     */
+    public TextBuffer(@NotNull String string) {
+        length = string.length();
+        value = new char[Math.max(16, length + (length >> 2))];
+        string.getChars(0, length, value, 0);
+    }
+
+    /**
+     * Creates a new empty buffer.
+     */
+    public TextBuffer() {
+        value = new char[16];
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > value.length)
+            value = Arrays.copyOf(value, Math.max(capacity, value.length * 2));
+    }
+
+    private void checkRange(int start, int end) {
+        if (start < 0 || start > end || end > length)
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Checks if this buffer has no characters.
+     *
+     * @return true if empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    /**
+     * Checks if this buffer is empty or only has whitespace characters.
+     *
+     * @return true if blank, false otherwise
+     */
+    public boolean isBlank() {
+        for (int i = 0; i < length; i++)
+            if (!Character.isWhitespace(value[i])) return false;
+
+        return true;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length)
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+
+        return value[index];
+    }
+
+    /**
+     * Sets the character at an index.
+     *
+     * @param index the index
+     * @param c the new character
+     */
+    public void setCharAt(int index, char c) {
+        if (index < 0 || index >= length)
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+
+        if (value[index] == c) return;
+
+        value[index] = c;
+        modifications++;
+    }
+
+    @NotNull
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return substring(start, end);
+    }
+
+    /**
+     * Returns a string with the characters of a range.
+     *
+     * @param start the start index, inclusive
+     * @param end the end index, exclusive
+     *
+     * @return the string of the range
+     */
+    @NotNull
+    public String substring(int start, int end) {
+        checkRange(start, end);
+        return new String(value, start, end - start);
+    }
+
+    /**
+     * Returns the amount of times this buffer was modified. Useful to know if an
+     * operator changed the text.
+     *
+     * @return the amount of modifications
+     */
+    public int getModifications() {
+        return modifications;
+    }
+
+    /**
+     * Replaces all the text of this buffer.
+     *
+     * @param string the new text, can not be null
+     * @return a reference of this buffer
+     */
+    @NotNull
+    public TextBuffer set(@NotNull String string) {
+        ensureCapacity(string.length());
+
+        string.getChars(0, string.length(), value, 0);
+        length = string.length();
+
+        modifications++;
+        return this;
+    }
+
+    /**
+     * Appends a text at the end of this buffer.
+     *
+     * @param text a text, can not be null
+     * @return a reference of this buffer
+     */
+    @NotNull
+    public TextBuffer append(@NotNull CharSequence text) {
+        return insert(length, text);
+    }
+
+    /**
+     * Inserts a text at an index.
+     *
+     * @param index the index
+     * @param text a text, can not be null
+     *
+     * @return a reference of this buffer
+     */
+    @NotNull
+    public TextBuffer insert(int index, @NotNull CharSequence text) {
+        return replace(index, index, text);
+    }
+
+    /**
+     * Deletes the characters of a range.
+     *
+     * @param start the start index, inclusive
+     * @param end the end index, exclusive
+     *
+     * @return a reference of this buffer
+     */
+    @NotNull
+    public TextBuffer delete(int start, int end) {
+        return replace(start, end, "");
+    }
+
+    /**
+     * Replaces the characters of a range with a text, moving the rest of characters
+     * only once.
+     *
+     * @param start the start index, inclusive
+     * @param end the end index, exclusive
+     * @param text the replacement, can not be null
+     *
+     * @return a reference of this buffer
+     */
+    @NotNull
+    public TextBuffer replace(int start, int end, @NotNull CharSequence text) {
+        checkRange(start, end);
+
+        int size = text.length(), newLength = length - (end - start) + size;
+        if (size == 0 && start == end) return this;
+
+        ensureCapacity(newLength);
+
+        System.arraycopy(value, end, value, start + size, length - end);
+        copy(text, value, start);
+
+        length = newLength;
+        modifications++;
+
+        return this;
+    }
+
+    private static void copy(CharSequence text, char[] target, int index) {
+        if (text instanceof String) {
+            ((String) text).getChars(0, text.length(), target, index);
+            return;
+        }
+
+        for (int i = 0; i < text.length(); i++) target[index + i] = text.charAt(i);
+    }
+
+    /**
+     * Checks if a text is found at an index.
+     *
+     * @param index the index
+     * @param text a text
+     * @param ignoreCase if the case is ignored
+     *
+     * @return true if the text is at the index, false otherwise
+     */
+    public boolean regionMatches(int index, @NotNull String text, boolean ignoreCase) {
+        int size = text.length();
+        if (index < 0 || index + size > length) return false;
+
+        for (int i = 0; i < size; i++) {
+            char a = value[index + i], b = text.charAt(i);
+            if (a == b) continue;
+
+            if (!ignoreCase || (Character.toUpperCase(a) != Character.toUpperCase(b) &&
+                    Character.toLowerCase(a) != Character.toLowerCase(b)))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the index of the first occurrence of a text, starting from an index.
+     *
+     * @param text a text
+     * @param from the index to start searching from
+     * @param ignoreCase if the case is ignored
+     *
+     * @return the index of the text, or -1 if not found
+     */
+    public int indexOf(@NotNull String text, int from, boolean ignoreCase) {
+        int size = text.length();
+        if (size == 0) return Math.min(Math.max(from, 0), length);
+
+        char first = text.charAt(0);
+
+        for (int i = Math.max(from, 0); i <= length - size; i++) {
+            char c = value[i];
+
+            if (c != first && (!ignoreCase ||
+                    Character.toLowerCase(c) != Character.toLowerCase(first)))
+                continue;
+
+            if (regionMatches(i, text, ignoreCase)) return i;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the index of the first occurrence of a text.
+     *
+     * @param text a text
+     * @return the index of the text, or -1 if not found
+     */
+    public int indexOf(@NotNull String text) {
+        return indexOf(text, 0, false);
+    }
+
+    /**
+     * Replaces all the occurrences of a text with a replacement. The characters of the
+     * buffer are moved once, no matter the amount of occurrences.
+     *
+     * @param target the text to replace, can not be empty
+     * @param replacement the replacement, can not be null
+     * @param ignoreCase if the case of the target is ignored
+     *
+     * @return the amount of replaced occurrences
+     */
+    public int replaceAll(@NotNull String target, @NotNull String replacement, boolean ignoreCase) {
+        final int size = target.length();
+        if (size == 0) throw new IllegalArgumentException("Target can not be empty");
+
+        Objects.requireNonNull(replacement);
+
+        int[] matches = null;
+        int count = 0;
+
+        for (int i = indexOf(target, 0, ignoreCase); i >= 0; i = indexOf(target, i + size, ignoreCase)) {
+            if (matches == null) matches = new int[4];
+            else if (count == matches.length) matches = Arrays.copyOf(matches, count * 2);
+
+            matches[count++] = i;
+        }
+
+        if (count == 0) return 0;
+
+        final int delta = replacement.length() - size;
+        final int newLength = length + count * delta;
+
+        ensureCapacity(newLength);
+
+        if (delta <= 0) {
+            int write = matches[0];
+
+            for (int m = 0; m < count; m++) {
+                replacement.getChars(0, replacement.length(), value, write);
+                write += replacement.length();
+
+                int from = matches[m] + size;
+                int to = m + 1 < count ? matches[m + 1] : length;
+
+                System.arraycopy(value, from, value, write, to - from);
+                write += to - from;
+            }
+        } else {
+            int read = length;
+
+            for (int m = count - 1; m >= 0; m--) {
+                int from = matches[m] + size, shift = (m + 1) * delta;
+
+                System.arraycopy(value, from, value, from + shift, read - from);
+                replacement.getChars(0, replacement.length(), value, matches[m] + m * delta);
+
+                read = matches[m];
+            }
+        }
+
+        length = newLength;
+        modifications++;
+
+        return count;
+    }
+
+    /**
+     * Converts every character of a range in place.
+     *
+     * @param start the start index, inclusive
+     * @param end the end index, exclusive
+     * @param operator the operator that converts a single character
+     *
+     * @return a reference of this buffer
+     */
+    @NotNull
+    public TextBuffer map(int start, int end, @NotNull IntUnaryOperator operator) {
+        checkRange(start, end);
+        boolean changed = false;
+
+        for (int i = start; i < end; i++) {
+            char c = (char) operator.applyAsInt(value[i]);
+            if (c == value[i]) continue;
+
+            value[i] = c;
+            changed = true;
+        }
+
+        if (changed) modifications++;
+        return this;
+    }
+
+    /**
+     * Removes all the characters of this buffer.
+     *
+     * @return a reference of this buffer
+     */
+    @NotNull
+    public TextBuffer clear() {
+        if (length > 0) modifications++;
+
+        length = 0;
+        return this;
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return new String(value, 0, length);
+    }
+}
@@ -5,49 +5,135 @@ import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**
  * The handler class for managing characters and determines its size in a centered chat message.
+ *
+ * <p> The lengths of all the characters of the Basic Multilingual Plane are stored in a flat
+ * primitive table, loaded lazily from a compact resource the first time a length is requested.
+ * Custom lengths can be set using {@link #addChar(char, int)}, and reverted to the default
+ * ones using {@link #removeChar(char...)}.
  */
 public final class CharHandler {
 
     /**
-     * The HashMap that stores all the characters.
+     * The path of the resource with the default lengths, relative to this class.
      */
-    private static final HashMap<Character, CharacterInfo> VALUES = new LinkedHashMap<>();
+    private static final String RESOURCE = "glyph-widths.txt";
 
     /**
-     * The default information if a char doesn't exist in the {@link #VALUES} map.
+     * The default length if the resource doesn't define a length for a character.
      */
-    private static final CharacterInfo DEFAULT = new CharacterInfo('a', 5);
+    private static final int DEFAULT_LENGTH = 5;
 
-    /*
-     * Stores all the default values in the map.
+    /**
+     * The default information if an input string is not a single character.
      */
-    static {
-        for (DefaultChars d : DefaultChars.values()) {
-            char c = d.character;
-            VALUES.put(c, new CharacterInfo(c, d.length));
-        }
-        for (SmallCaps s : SmallCaps.values()) {
-            char c = s.character;
-            VALUES.put(c, new CharacterInfo(c, s.length));
+    private static final CharacterInfo DEFAULT = new CharacterInfo('a', DEFAULT_LENGTH);
+
+    private static final Object LOCK = new Object();
+
+    /**
+     * Holds the default and the current tables, so they are only loaded when needed.
+     *
+     * <p> The current table is never modified: every change creates a new copy of it,
+     * so readers never need to lock.
+     */
+    private static class Table {
+
+        private static final byte[] DEFAULTS = load();
+        private static volatile byte[] current = DEFAULTS;
+    }
+
+    private static byte[] load() {
+        byte[] table = new byte[Character.MAX_VALUE + 1];
+        Arrays.fill(table, (byte) DEFAULT_LENGTH);
+
+        try (InputStream stream = CharHandler.class.getResourceAsStream(RESOURCE)) {
+            if (stream != null) {
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(stream, StandardCharsets.UTF_8));
+
+                String line;
+
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.isEmpty() || line.charAt(0) == '#') continue;
+
+                    String[] split = line.split(" ");
+
+                    if (split[0].equals("default")) {
+                        Arrays.fill(table, Byte.parseByte(split[1]));
+                        continue;
+                    }
+
+                    int first = Integer.parseInt(split[0], 16);
+                    int last = split.length > 2 ? Integer.parseInt(split[1], 16) : first;
+
+                    byte length = Byte.parseByte(split[split.length - 1]);
+                    for (int i = first; i <= last; i++) table[i] = length;
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
         }
+
+        for (DefaultChars d : DefaultChars.values())
+            table[d.character] = (byte) d.length;
+        for (SmallCaps s : SmallCaps.values())
+            table[s.character] = (byte) s.length;
+
+        return table;
+    }
+
+    /**
+     * Returns the length of a character, without the 1 pixel space between characters.
+     *
+     * @param c an input character
+     * @return the length of the character
+     */
+    public static int getLength(char c) {
+        return Table.current[c];
+    }
+
+    /**
+     * Returns the length of a character when is bold, without the 1 pixel space between
+     * characters. Bold characters are 1 pixel wider, except spaces and zero-width chars.
+     *
+     * @param c an input character
+     * @return the length of the character in bold
+     */
+    public static int getBoldLength(char c) {
+        int length = Table.current[c];
+        return length == 0 || c == ' ' ? length : length + 1;
+    }
+
+    /**
+     * Returns the length of a character, normal or bold.
+     *
+     * @param c an input character
+     * @param bold if the character is bold
+     *
+     * @return the length of the character
+     */
+    public static int getLength(char c, boolean bold) {
+        return bold ? getBoldLength(c) : getLength(c);
     }
 
     /**
      * Gets the requested {@link CharacterInfo} instance of an input character.
-     * <p> Returns the {@link #DEFAULT} value if the character isn't found in the {@link #VALUES} map.
      *
      * @param c an input character
      * @return the requested info
      */
     @NotNull
     public static CharacterInfo getInfo(char c) {
-        CharacterInfo info = VALUES.getOrDefault(c, null);
-        return info == null ? DEFAULT : info;
+        return new CharacterInfo(c, getLength(c));
     }
 
     /**
@@ -79,29 +165,44 @@ public final class CharHandler {
     }
 
     /**
-     * Adds a new character in the {@link #VALUES} map.
+     * Sets a custom length for a character.
      *
      * @param c a character
-     * @param length the char's length
+     * @param length the char's length, from 0 to 127
+     *
+     * @throws IllegalArgumentException if the length is out of range
      */
     public static void addChar(char c, int length) {
-        VALUES.put(c, new CharacterInfo(c, length));
+        if (length < 0 || length > Byte.MAX_VALUE)
+            throw new IllegalArgumentException("Length must be between 0 and 127");
+
+        synchronized (LOCK) {
+            byte[] table = Table.current.clone();
+            table[c] = (byte) length;
+            Table.current = table;
+        }
     }
 
     /**
-     * Removes a character array from the {@link #VALUES} map.
+     * Reverts the length of a character array to its default value.
      *
      * @param array a character array
      */
     public static void removeChar(char... array) {
-        if (!ArrayUtils.isArrayEmpty(array)) for (char c : array) VALUES.remove(c);
+        if (ArrayUtils.isArrayEmpty(array)) return;
+
+        synchronized (LOCK) {
+            byte[] table = Table.current.clone();
+            for (char c : array) table[c] = Table.DEFAULTS[c];
+            Table.current = table;
+        }
     }
 
     /**
-     * Adds a new character from a string in the {@link #VALUES} map.
+     * Sets a custom length for a character from a string.
      *
      * @param input an input string
-     * @param length the char's length
+     * @param length the char's length, from 0 to 127
      */
     public static void addChar(String input, int length) {
         Character character = toChar(input);
@@ -109,7 +210,7 @@ public final class CharHandler {
     }
 
     /**
-     * Removes characters in a string array from the {@link #VALUES} map.
+     * Reverts the length of the characters in a string array to its default value.
      *
      * @param array an string array
      */
@@ -23,10 +23,10 @@ public class CharacterInfo {
     private final int length;
 
     /**
-     * The char's length when is bold.
+     * The char's length when is bold. Spaces and zero-width chars are not wider in bold.
      * @return the length in bold
      */
     public int getBoldLength() {
-        return getLength() + (getCharacter() == ' ' ? 0 : 1);
+        return getLength() + (getCharacter() == ' ' || getLength() == 0 ? 0 : 1);
     }
 }
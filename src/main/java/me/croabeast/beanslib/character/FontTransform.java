@@ -0,0 +1,201 @@
+package me.croabeast.beanslib.character;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.text.Normalizer;
+import java.util.function.Consumer;
+
+/**
+ * An enum of font transforms that replace characters with Unicode look-alikes, like
+ * small caps, fullwidth or superscript characters.
+ *
+ * <p> Every transform uses a direct translation table for the Latin characters (up to
+ * {@code U+024F}), with the accents of every character already folded, so converting
+ * a string is a single array-indexed pass. A reverse table converts the transformed
+ * characters back to their normal ASCII characters.
+ *
+ * <pre> {@code
+ * FontTransform.SMALL_CAPS.apply("Héllo"); // "ʜᴇʟʟᴏ"
+ * FontTransform.SUPERSCRIPT.apply("x2"); // "ˣ²"
+ * FontTransform.SMALL_CAPS.revert("ʜᴇʟʟᴏ"); // "hello"
+ * } </pre>
+ *
+ * @author CroaBeast
+ * @since 1.4
+ */
+public enum FontTransform {
+    /**
+     * Converts letters to small caps, using the characters of {@link SmallCaps}.
+     */
+    SMALL_CAPS(t -> {
+        for (SmallCaps s : SmallCaps.values()) {
+            t[s.def] = s.character;
+            t[Character.toUpperCase(s.def)] = s.character;
+        }
+    }),
+    /**
+     * Converts the printable ASCII characters, except the space, to fullwidth characters.
+     */
+    FULLWIDTH(t -> {
+        for (char c = '!'; c <= '~'; c++) t[c] = (char) (c - '!' + '！');
+    }),
+    /**
+     * Converts numbers, some symbols and letters to superscript characters. Uppercase
+     * letters are converted to lowercase superscript letters, and the letter {@code q}
+     * has no superscript character.
+     */
+    SUPERSCRIPT(t -> {
+        String from = "0123456789+-=()abcdefghijklmnoprstuvwxyz";
+        String to = "⁰¹²³⁴⁵⁶⁷⁸⁹⁺⁻⁼⁽⁾ᵃᵇᶜᵈᵉᶠᵍʰⁱʲᵏˡᵐⁿᵒᵖʳˢᵗᵘᵛʷˣʸᶻ";
+
+        for (int i = 0; i < from.length(); i++) {
+            char c = from.charAt(i);
+
+            t[c] = to.charAt(i);
+            t[Character.toUpperCase(c)] = to.charAt(i);
+        }
+    });
+
+    /**
+     * The amount of characters covered by the translation tables: all the Latin
+     * characters, from {@code U+0000} to {@code U+024F}.
+     */
+    static final int LIMIT = 0x250;
+
+    private final char[] forward = new char[LIMIT];
+
+    private final char[] reverse;
+    private final int offset;
+
+    FontTransform(Consumer<char[]> mapper) {
+        for (char c = 0; c < LIMIT; c++) forward[c] = c;
+        mapper.accept(forward);
+
+        int min = Character.MAX_VALUE, max = -1;
+
+        // ASCII results, like the small caps 's', are not considered transformed
+        for (char c = 0; c < 0x80; c++) {
+            char t = forward[c];
+            if (t < 0x80) continue;
+
+            min = Math.min(min, t);
+            max = Math.max(max, t);
+        }
+
+        offset = max < 0 ? 0 : min;
+        reverse = new char[max < 0 ? 0 : max - min + 1];
+
+        // ascending, so lowercase letters win over uppercase ones
+        for (char c = 0; c < 0x80; c++) {
+            char t = forward[c];
+            if (t >= 0x80) reverse[t - offset] = c;
+        }
+
+        for (char c = 0x80; c < LIMIT; c++) {
+            char base = Folding.TABLE[c];
+            if (base != c) forward[c] = forward[base];
+        }
+    }
+
+    /**
+     * Converts a single character. Characters without a conversion are returned as is.
+     *
+     * @param c a character
+     * @return the converted character
+     */
+    public char apply(char c) {
+        return c < LIMIT ? forward[c] : c;
+    }
+
+    /**
+     * Converts all the characters of a string.
+     *
+     * @param string a string, can be null
+     * @return the converted string
+     */
+    public String apply(String string) {
+        if (StringUtils.isEmpty(string)) return string;
+
+        char[] chars = string.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            char c = chars[i];
+            if (c < LIMIT) chars[i] = forward[c];
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * Checks if a character is the result of this transform, ignoring the characters
+     * that are not changed by it.
+     *
+     * @param c a character
+     * @return true if the character is transformed, false otherwise
+     */
+    public boolean isTransformed(char c) {
+        int i = c - offset;
+        return i >= 0 && i < reverse.length && reverse[i] != 0;
+    }
+
+    /**
+     * Converts a transformed character back to its normal character. Other characters
+     * are returned as is.
+     *
+     * @param c a character
+     * @return the normal character
+     */
+    public char revert(char c) {
+        int i = c - offset;
+        if (i < 0 || i >= reverse.length) return c;
+
+        char r = reverse[i];
+        return r == 0 ? c : r;
+    }
+
+    /**
+     * Converts all the transformed characters of a string back to normal characters.
+     *
+     * @param string a string, can be null
+     * @return the normal string
+     */
+    public String revert(String string) {
+        if (StringUtils.isEmpty(string)) return string;
+
+        char[] chars = string.toCharArray();
+        for (int i = 0; i < chars.length; i++) chars[i] = revert(chars[i]);
+
+        return new String(chars);
+    }
+
+    /**
+     * Returns a character without its accents, if it's a Latin character.
+     *
+     * @param c a character
+     * @return the character without accents
+     */
+    public static char stripAccent(char c) {
+        return c < LIMIT ? Folding.TABLE[c] : c;
+    }
+
+    private static class Folding {
+
+        private static final char[] TABLE = new char[LIMIT];
+
+        static {
+            for (char c = 0; c < LIMIT; c++) {
+                TABLE[c] = c;
+                if (c < 0x80) continue;
+
+                String s = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFKD);
+
+                for (int i = 0; i < s.length(); i++) {
+                    char base = s.charAt(i);
+                    if (Character.getType(base) == Character.NON_SPACING_MARK) continue;
+
+                    if (base < LIMIT) TABLE[c] = base;
+                    break;
+                }
+            }
+        }
+    }
+}
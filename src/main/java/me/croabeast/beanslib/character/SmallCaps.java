@@ -45,6 +45,8 @@ public enum SmallCaps {
     Y('ʏ'),
     Z('ᴢ');
 
+    private static final Pattern MARKS = Pattern.compile("\\p{M}");
+
     final char character;
     final char def;
     int length = 5;
@@ -59,10 +61,6 @@ public enum SmallCaps {
         length = i;
     }
 
-    private boolean equalsIgnoreCase(char c) {
-        return (def + "").matches("(?i)" + Pattern.quote(String.valueOf(c)));
-    }
-
     @Override
     public String toString() {
         return String.valueOf(character);
@@ -78,7 +76,7 @@ public enum SmallCaps {
         if (StringUtils.isBlank(string)) return string;
 
         Normalizer.Form form = Normalizer.Form.NFKD;
-        return Normalizer.normalize(string, form).replaceAll("\\p{M}", "");
+        return MARKS.matcher(Normalizer.normalize(string, form)).replaceAll("");
     }
 
     /**
@@ -88,30 +86,26 @@ public enum SmallCaps {
      * @return A character with no accents
      */
     public static char stripAccent(char character) {
-        return stripAccents(String.valueOf(character)).toCharArray()[0];
-    }
-
-    private static SmallCaps valueOf(char character, boolean strip) {
-        char c = strip ? stripAccent(character) : character;
+        if (character < FontTransform.LIMIT)
+            return FontTransform.stripAccent(character);
 
-        for (SmallCaps caps : values())
-            if (caps.equalsIgnoreCase(c)) return caps;
-
-        return null;
+        String s = stripAccents(String.valueOf(character));
+        return s.isEmpty() ? character : s.charAt(0);
     }
 
     /**
      * Returns the SmallCaps enum constant corresponding to the given character,
      * or null if none exists.
      *
-     * <p> This method strips accents from the input character before looking
-     * for a match.
+     * <p> The character can be a small caps character, or a normal letter. This method
+     * strips accents from the input character before looking for a match.
      *
      * @param character The character to look for a SmallCaps enum constant
      * @return The respective SmallCaps enum constant, or null if none exists
      */
     public static SmallCaps valueOf(char character) {
-        return valueOf(character, true);
+        char c = Character.toLowerCase(FontTransform.SMALL_CAPS.revert(stripAccent(character)));
+        return c >= 'a' && c <= 'z' ? values()[c - 'a'] : null;
     }
 
     /**
@@ -121,7 +115,7 @@ public enum SmallCaps {
      * @return true if the given character is small caps; false otherwise
      */
     public static boolean isSmallCaps(char character) {
-        return valueOf(character) != null;
+        return FontTransform.SMALL_CAPS.isTransformed(character);
     }
 
     /**
@@ -135,8 +129,8 @@ public enum SmallCaps {
         if (StringUtils.isBlank(string))
             return false;
 
-        for (char c : string.toCharArray())
-            if (isSmallCaps(c)) return true;
+        for (int i = 0; i < string.length(); i++)
+            if (isSmallCaps(string.charAt(i))) return true;
 
         return false;
     }
@@ -145,29 +139,14 @@ public enum SmallCaps {
      * Converts the given string to small caps, replacing lowercase letters with
      * their small caps equivalents.
      *
-     * <p> This method strips accents from the input characters before converting
-     * them to small caps.
+     * <p> Accents of the Latin characters are stripped before converting them to
+     * small caps.
      *
      * @param string The string to convert to small caps
      * @return A string in small caps
      */
     public static String toSmallCaps(String string) {
-        if (StringUtils.isBlank(string))
-            return string;
-
-        char[] first = stripAccents(string).toCharArray();
-        int length = first.length;
-
-        char[] result = new char[length];
-
-        for (int i = 0; i < length; i++) {
-            SmallCaps caps = valueOf(first[i], false);
-
-            result[i] = caps != null ?
-                    caps.character : first[i];
-        }
-
-        return new String(result);
+        return StringUtils.isBlank(string) ? string : FontTransform.SMALL_CAPS.apply(string);
     }
 
     /**
@@ -178,25 +157,6 @@ public enum SmallCaps {
      * @return A string in normal characters
      */
     public static String toNormal(String string) {
-        if (StringUtils.isBlank(string))
-            return string;
-
-        char[] first = string.toCharArray();
-        int length = first.length;
-
-        char[] result = new char[length];
-
-        for (int i = 0; i < length; i++) {
-            char c = first[i];
-
-            if (isSmallCaps(c)) {
-                SmallCaps sc = valueOf(c);
-                if (sc != null) c = sc.def;
-            }
-
-            result[i] = c;
-        }
-
-        return new String(result);
+        return StringUtils.isBlank(string) ? string : FontTransform.SMALL_CAPS.revert(string);
     }
 }
@@ -3,13 +3,15 @@ package me.croabeast.beanslib.discord;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
-import lombok.var;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * An object that represents embed messages.
@@ -42,6 +44,24 @@ public class EmbedObject {
      */
     private Author author;
 
+    private static final Map<String, Integer> COLORS = new HashMap<>();
+
+    static {
+        COLORS.put("white", 0xFFFFFF);
+        COLORS.put("lightgray", 0xC0C0C0);
+        COLORS.put("gray", 0x808080);
+        COLORS.put("darkgray", 0x404040);
+        COLORS.put("black", 0x000000);
+        COLORS.put("red", 0xFF0000);
+        COLORS.put("pink", 0xFFAFAF);
+        COLORS.put("orange", 0xFFC800);
+        COLORS.put("yellow", 0xFFFF00);
+        COLORS.put("green", 0x00FF00);
+        COLORS.put("magenta", 0xFF00FF);
+        COLORS.put("cyan", 0x00FFFF);
+        COLORS.put("blue", 0x0000FF);
+    }
+
     /**
      * Constructs an object with a message token and a message.
      * @param token a token
@@ -127,24 +147,48 @@ public class EmbedObject {
 
     /**
      * Set the color for the embed object.
+     *
+     * <p> The color can be a name of the {@link Color} constants, like {@code red} or
+     * {@code light_gray}, or a number like {@code #FF5555}, {@code 0xFF5555} or {@code 16733525}.
+     *
      * @param color a color
      * @return a reference of this object
      */
     public EmbedObject setColor(String color) {
-        Color c = null;
-        try {
-            try {
-                c = Color.decode(color);
-            } catch (Exception e) {
-                var clazz = Class.forName("java.awt.Color");
-                c = (Color) clazz.getField(color).get(null);
-            }
-        } catch (Exception ignored) {}
-
-        this.color = c != null ? c : Color.getColor(color);
+        return setColor(parseColor(color));
+    }
+
+    /**
+     * Set the color for the embed object.
+     * @param rgb an RGB color, or a negative number to remove the color
+     * @return a reference of this object
+     */
+    public EmbedObject setColor(int rgb) {
+        this.color = rgb < 0 ? null : new Color(rgb & 0xFFFFFF);
         return this;
     }
 
+    /**
+     * Parses a color name or number to an RGB color.
+     *
+     * @param color a color name or number
+     * @return the RGB color, or -1 if the color is not valid
+     */
+    static int parseColor(String color) {
+        if (StringUtils.isBlank(color)) return -1;
+
+        color = color.trim();
+
+        Integer named = COLORS.get(color.replace("_", "").toLowerCase(Locale.ENGLISH));
+        if (named != null) return named;
+
+        try {
+            return Integer.decode(color) & 0xFFFFFF;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
     /**
      * Set the author for the embed object.
      * @param name a text
@@ -0,0 +1,144 @@
+package me.croabeast.beanslib.discord;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A transport using the {@code java.net.http.HttpClient} of Java 11 or higher, accessed
+ * using reflection so the lib can still run on Java 8.
+ *
+ * <p> A single client is shared by all the requests, so its connections are reused.
+ * Payloads bigger than {@link #BUFFER_LIMIT}, or with an unknown length, are sent using
+ * the fallback transport to stream them instead of buffering them in memory.
+ */
+final class HttpClientTransport implements WebhookTransport {
+
+    private static final long BUFFER_LIMIT = 1 << 20;
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final WebhookTransport fallback;
+    private final Object client;
+
+    private final Method newBuilder, timeout, header, method, build, send;
+    private final Method ofByteArray, noBody, ofString;
+    private final Method statusCode, headers, headersMap, body;
+
+    private HttpClientTransport(WebhookTransport fallback) throws ReflectiveOperationException {
+        this.fallback = fallback;
+
+        Class<?> clientClass = Class.forName("java.net.http.HttpClient");
+        Class<?> clientBuilder = Class.forName("java.net.http.HttpClient$Builder");
+
+        Class<?> request = Class.forName("java.net.http.HttpRequest");
+        Class<?> requestBuilder = Class.forName("java.net.http.HttpRequest$Builder");
+        Class<?> publisher = Class.forName("java.net.http.HttpRequest$BodyPublisher");
+        Class<?> publishers = Class.forName("java.net.http.HttpRequest$BodyPublishers");
+
+        Class<?> response = Class.forName("java.net.http.HttpResponse");
+        Class<?> handler = Class.forName("java.net.http.HttpResponse$BodyHandler");
+        Class<?> handlers = Class.forName("java.net.http.HttpResponse$BodyHandlers");
+        Class<?> httpHeaders = Class.forName("java.net.http.HttpHeaders");
+
+        Object builder = clientClass.getMethod("newBuilder").invoke(null);
+        clientBuilder.getMethod("connectTimeout", Duration.class).invoke(builder, TIMEOUT);
+
+        client = clientBuilder.getMethod("build").invoke(builder);
+
+        newBuilder = request.getMethod("newBuilder", URI.class);
+        timeout = requestBuilder.getMethod("timeout", Duration.class);
+        header = requestBuilder.getMethod("header", String.class, String.class);
+        method = requestBuilder.getMethod("method", String.class, publisher);
+        build = requestBuilder.getMethod("build");
+        send = clientClass.getMethod("send", request, handler);
+
+        ofByteArray = publishers.getMethod("ofByteArray", byte[].class);
+        noBody = publishers.getMethod("noBody");
+        ofString = handlers.getMethod("ofString");
+
+        statusCode = response.getMethod("statusCode");
+        headers = response.getMethod("headers");
+        headersMap = httpHeaders.getMethod("map");
+        body = response.getMethod("body");
+    }
+
+    /**
+     * Creates a new transport if the {@code HttpClient} is available.
+     *
+     * @param fallback the transport used if the client is not available, and for the
+     *                 payloads that must be streamed
+     *
+     * @return the new transport, or the fallback transport
+     */
+    static WebhookTransport createOr(WebhookTransport fallback) {
+        try {
+            return new HttpClientTransport(fallback);
+        } catch (Throwable e) {
+            return fallback;
+        }
+    }
+
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public WebhookResponse execute(@NotNull String method, @NotNull String url, @Nullable WebhookPayload payload) throws IOException {
+        long length = payload == null ? 0 : payload.getContentLength();
+
+        if (payload != null && (length < 0 || length > BUFFER_LIMIT) && !method.equals("PATCH"))
+            return fallback.execute(method, url, payload);
+
+        try {
+            Object builder = newBuilder.invoke(null, URI.create(url));
+
+            timeout.invoke(builder, TIMEOUT);
+            header.invoke(builder, "User-Agent", "BeansLib-Webhook");
+
+            Object publisher;
+
+            if (payload != null) {
+                ByteArrayOutputStream stream = new ByteArrayOutputStream(length > 0 ? (int) length : 512);
+                payload.writeTo(stream);
+
+                header.invoke(builder, "Content-Type", payload.getContentType());
+                publisher = ofByteArray.invoke(null, (Object) stream.toByteArray());
+            }
+            else publisher = noBody.invoke(null);
+
+            this.method.invoke(builder, method, publisher);
+
+            Object response = send.invoke(client, build.invoke(builder), ofString.invoke(null));
+
+            Map<String, String> map = new HashMap<>();
+            Map<String, List<String>> raw = (Map<String, List<String>>) headersMap.invoke(headers.invoke(response));
+
+            for (Map.Entry<String, List<String>> e : raw.entrySet())
+                if (!e.getValue().isEmpty())
+                    map.put(e.getKey().toLowerCase(Locale.ENGLISH), e.getValue().get(0));
+
+            return new WebhookResponse((int) statusCode.invoke(response), map, (String) body.invoke(response));
+        }
+        catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Request was interrupted", cause);
+            }
+
+            throw new IOException(cause);
+        }
+        catch (IllegalAccessException e) {
+            throw new IOException(e);
+        }
+    }
+}
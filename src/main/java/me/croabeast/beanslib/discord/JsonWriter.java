@@ -0,0 +1,275 @@
+package me.croabeast.beanslib.discord;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A streaming JSON writer that encodes the JSON in UTF-8 directly to an output stream,
+ * using a small internal buffer instead of building the whole JSON string.
+ *
+ * <p> Strings are escaped following the JSON specification: quotes, backslashes and
+ * control characters are escaped, and unpaired surrogates are written as escaped code
+ * units, so any Java string produces valid JSON.
+ *
+ * <pre> {@code
+ * JsonWriter writer = new JsonWriter(stream);
+ *
+ * writer.beginObject()
+ *         .name("content").value("Hello \"world\"")
+ *         .name("tts").value(false)
+ *         .endObject()
+ *         .flush();
+ * } </pre>
+ *
+ * <p> Commas and colons are written automatically. Writers are not thread-safe.
+ *
+ * @author CroaBeast
+ * @since 1.4
+ */
+final class JsonWriter {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private OutputStream stream;
+
+    private final byte[] buffer = new byte[4096];
+    private int position = 0;
+
+    private boolean[] first = new boolean[8];
+    private int depth = 0;
+    private boolean afterName = false;
+
+    /**
+     * Creates a new writer.
+     *
+     * @param stream the output stream to write the JSON to
+     */
+    JsonWriter(@NotNull OutputStream stream) {
+        this.stream = Objects.requireNonNull(stream);
+    }
+
+    private void put(int b) throws IOException {
+        if (position == buffer.length) flushBuffer();
+        buffer[position++] = (byte) b;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position == 0) return;
+
+        stream.write(buffer, 0, position);
+        position = 0;
+    }
+
+    private void prefix() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+
+        if (depth == 0) return;
+
+        if (!first[depth]) put(',');
+        first[depth] = false;
+    }
+
+    private JsonWriter open(char c) throws IOException {
+        prefix();
+        put(c);
+
+        if (++depth == first.length) first = Arrays.copyOf(first, depth * 2);
+        first[depth] = true;
+
+        return this;
+    }
+
+    private JsonWriter close(char c) throws IOException {
+        if (depth == 0) throw new IllegalStateException("Nothing to close");
+
+        depth--;
+        put(c);
+
+        return this;
+    }
+
+    @NotNull
+    JsonWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    @NotNull
+    JsonWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    @NotNull
+    JsonWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    @NotNull
+    JsonWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    /**
+     * Writes the name of the next value of an object.
+     *
+     * @param name the name
+     * @return a reference of this writer
+     * @throws IOException if the name can not be written
+     */
+    @NotNull
+    JsonWriter name(@NotNull String name) throws IOException {
+        prefix();
+
+        put('"');
+        chars(name);
+        put('"');
+        put(':');
+
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * Writes a string value, or {@code null} if the string is null.
+     *
+     * @param value the value
+     * @return a reference of this writer
+     * @throws IOException if the value can not be written
+     */
+    @NotNull
+    JsonWriter value(String value) throws IOException {
+        if (value == null) return literal("null");
+
+        openString();
+        chars(value);
+        return closeString();
+    }
+
+    @NotNull
+    JsonWriter value(boolean value) throws IOException {
+        return literal(value ? "true" : "false");
+    }
+
+    @NotNull
+    JsonWriter value(long value) throws IOException {
+        return literal(Long.toString(value));
+    }
+
+    private JsonWriter literal(String value) throws IOException {
+        prefix();
+        for (int i = 0; i < value.length(); i++) put(value.charAt(i));
+
+        return this;
+    }
+
+    /**
+     * Opens a string value, so its content can be written in parts using {@link #chars(String)}.
+     *
+     * @return a reference of this writer
+     * @throws IOException if the quote can not be written
+     */
+    @NotNull
+    JsonWriter openString() throws IOException {
+        prefix();
+        put('"');
+        return this;
+    }
+
+    /**
+     * Closes a string value opened with {@link #openString()}.
+     *
+     * @return a reference of this writer
+     * @throws IOException if the quote can not be written
+     */
+    @NotNull
+    JsonWriter closeString() throws IOException {
+        put('"');
+        return this;
+    }
+
+    /**
+     * Writes the escaped content of a string, without quotes.
+     *
+     * @param string the string
+     * @return a reference of this writer
+     * @throws IOException if the content can not be written
+     */
+    @NotNull
+    JsonWriter chars(@NotNull String string) throws IOException {
+        final int length = string.length();
+
+        for (int i = 0; i < length; i++) {
+            char c = string.charAt(i);
+
+            if (c < 0x80) {
+                switch (c) {
+                    case '"': put('\\'); put('"'); break;
+                    case '\\': put('\\'); put('\\'); break;
+                    case '\n': put('\\'); put('n'); break;
+                    case '\r': put('\\'); put('r'); break;
+                    case '\t': put('\\'); put('t'); break;
+                    case '\b': put('\\'); put('b'); break;
+                    case '\f': put('\\'); put('f'); break;
+
+                    default:
+                        if (c < 0x20) unicode(c);
+                        else put(c);
+                }
+                continue;
+            }
+
+            if (c < 0x800) {
+                put(0xC0 | (c >> 6));
+                put(0x80 | (c & 0x3F));
+                continue;
+            }
+
+            if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < length &&
+                        Character.isLowSurrogate(string.charAt(i + 1)))
+                {
+                    int code = Character.toCodePoint(c, string.charAt(++i));
+
+                    put(0xF0 | (code >> 18));
+                    put(0x80 | ((code >> 12) & 0x3F));
+                    put(0x80 | ((code >> 6) & 0x3F));
+                    put(0x80 | (code & 0x3F));
+                }
+                else unicode(c);
+
+                continue;
+            }
+
+            put(0xE0 | (c >> 12));
+            put(0x80 | ((c >> 6) & 0x3F));
+            put(0x80 | (c & 0x3F));
+        }
+
+        return this;
+    }
+
+    private void unicode(char c) throws IOException {
+        put('\\');
+        put('u');
+        put(HEX[(c >> 12) & 0xF]);
+        put(HEX[(c >> 8) & 0xF]);
+        put(HEX[(c >> 4) & 0xF]);
+        put(HEX[c & 0xF]);
+    }
+
+    /**
+     * Writes the buffered bytes to the output stream.
+     *
+     * @throws IOException if the bytes can not be written
+     */
+    void flush() throws IOException {
+        flushBuffer();
+        stream.flush();
+    }
+}
@@ -0,0 +1,212 @@
+package me.croabeast.beanslib.discord;
+
+import lombok.Getter;
+import me.croabeast.beanslib.utility.Exceptions;
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A webhook message that is edited in place every time it's updated, instead of sending
+ * a new message. Useful for status boards, like the player count or an event scoreboard.
+ *
+ * <p> The first update sends the message with {@code ?wait=true} to know its id, and the
+ * next updates edit it using {@code PATCH} requests. Updates are debounced: at most one
+ * request is sent per interval, and an update that arrives before the interval elapses
+ * replaces any other pending update, so only the latest state is sent. Failed requests are
+ * not stored in the {@link WebhookOutbox}, the latest state is sent again instead.
+ *
+ * <pre> {@code
+ * LiveWebhookMessage status = new LiveWebhookMessage(url, 5, TimeUnit.SECONDS);
+ *
+ * // called every time the player count changes
+ * status.update(new RawWebhook(url, null, null)
+ *         .setContent("Online players: " + Bukkit.getOnlinePlayers().size()));
+ * } </pre>
+ *
+ * <p> If the message is deleted, the next update sends a new message.
+ *
+ * <p> Note: editing uses a {@code PATCH} request, that requires Java 11 or higher. If it's
+ * not supported, every update sends a new message instead.
+ *
+ * @author CroaBeast
+ * @since 1.4
+ */
+public final class LiveWebhookMessage {
+
+    /**
+     * The URL of the webhook.
+     */
+    @Getter
+    private final String url;
+
+    /**
+     * The minimum time, in milliseconds, between two requests.
+     */
+    @Getter
+    private final long interval;
+
+    /**
+     * The id of the message, or null if it was not sent yet.
+     */
+    @Getter
+    private volatile String messageId;
+
+    private WebhookPayload latest;
+    private boolean inFlight = false;
+
+    private long lastSent = 0;
+    private ScheduledFuture<?> scheduled;
+
+    /**
+     * Creates a live message that edits an existing message.
+     *
+     * @param url the URL of the webhook
+     * @param messageId the id of the message, or null to send a new message on the first update
+     * @param interval the minimum time between two requests, must be positive
+     * @param unit the unit of the interval
+     */
+    public LiveWebhookMessage(@NotNull String url, @Nullable String messageId, long interval, @NotNull TimeUnit unit) {
+        if (StringUtils.isBlank(url))
+            throw new NullPointerException("URL can not be null");
+
+        this.url = url;
+        this.messageId = messageId;
+        this.interval = unit.toMillis(Exceptions.validate(l -> l > 0, interval));
+    }
+
+    /**
+     * Creates a live message that sends a new message on the first update.
+     *
+     * @param url the URL of the webhook
+     * @param interval the minimum time between two requests, must be positive
+     * @param unit the unit of the interval
+     */
+    public LiveWebhookMessage(@NotNull String url, long interval, @NotNull TimeUnit unit) {
+        this(url, null, interval, unit);
+    }
+
+    /**
+     * Updates the message with a new payload. It's sent when the interval since the last
+     * request elapses, unless a newer payload replaces it before.
+     *
+     * @param payload the new payload of the message
+     */
+    public void update(@NotNull WebhookPayload payload) {
+        Objects.requireNonNull(payload);
+
+        synchronized (this) {
+            latest = payload;
+            schedule();
+        }
+    }
+
+    /**
+     * Updates the message with the content of a webhook. See {@link #update(WebhookPayload)}.
+     *
+     * @param webhook the webhook with the new content
+     * @throws NullPointerException if there is no content or embeds to display
+     */
+    public void update(@NotNull RawWebhook webhook) {
+        update(webhook.toPayload());
+    }
+
+    /**
+     * Checks if there is an update that was not sent yet.
+     *
+     * @return true if there is a pending update, false otherwise
+     */
+    public synchronized boolean isPending() {
+        return latest != null || inFlight;
+    }
+
+    /**
+     * Discards the pending update, if any.
+     */
+    public synchronized void cancel() {
+        latest = null;
+
+        if (scheduled != null) {
+            scheduled.cancel(false);
+            scheduled = null;
+        }
+    }
+
+    private void schedule() {
+        if (inFlight || scheduled != null || latest == null) return;
+
+        long delay = lastSent + interval - System.currentTimeMillis();
+
+        if (delay <= 0) {
+            send();
+            return;
+        }
+
+        scheduled = WebhookTimer.get().schedule(() -> {
+            synchronized (this) {
+                scheduled = null;
+                schedule();
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void send() {
+        final WebhookPayload payload = latest;
+        final String id = messageId;
+
+        latest = null;
+        inFlight = true;
+        lastSent = System.currentTimeMillis();
+
+        WebhookDispatcher dispatcher = WebhookDispatcher.getDefault();
+        final boolean edit = id != null && dispatcher.supports("PATCH");
+
+        // failed requests are never stored in the outbox: the latest state is sent again instead
+        CompletableFuture<WebhookResponse> future = !edit ?
+                dispatcher.submit("POST", RawWebhook.withQuery(url, "wait=true"), payload, false) :
+                dispatcher.submit("PATCH", RawWebhook.messageUrl(url, id), payload, false);
+
+        future.whenComplete((response, error) -> {
+            synchronized (this) {
+                inFlight = false;
+
+                if (error == null) {
+                    if (!edit) messageId = response.getMessageId();
+                }
+                else {
+                    if (error instanceof CompletionException && error.getCause() != null)
+                        error = error.getCause();
+
+                    int status = error instanceof WebhookException ?
+                            ((WebhookException) error).getStatus() : 0;
+
+                    // the message was deleted, so a new one is sent with the latest state
+                    if (edit && status == 404) {
+                        messageId = null;
+                        if (latest == null) latest = payload;
+                    }
+                    else {
+                        error.printStackTrace();
+
+                        // the request failed, so it's sent again unless a newer update replaced it
+                        boolean rejected = status >= 400 && status < 500;
+                        if (!rejected && latest == null) latest = payload;
+                    }
+                }
+
+                schedule();
+            }
+        });
+    }
+
+    @Override
+    public String toString() {
+        return "LiveWebhookMessage{url='" + url + "', messageId=" + messageId + '}';
+    }
+}
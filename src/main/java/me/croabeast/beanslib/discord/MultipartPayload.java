@@ -0,0 +1,236 @@
+package me.croabeast.beanslib.discord;
+
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A {@code multipart/form-data} payload that sends a JSON payload with file attachments.
+ *
+ * <p> The files are not loaded in memory: they are streamed from the disk when the
+ * request is sent, using {@link FileChannel#transferTo(long, long, WritableByteChannel)}.
+ * The size of every file is read when it's added, so the length of the payload is known
+ * before the upload begins and files that exceed the size limit are rejected early.
+ *
+ * <pre> {@code
+ * MultipartPayload payload = new MultipartPayload(webhook.toPayload())
+ *         .addFile(new File(getDataFolder(), "crash.log"));
+ *
+ * WebhookDispatcher.getDefault().submit(url, payload);
+ * } </pre>
+ *
+ * @author CroaBeast
+ * @since 1.4
+ */
+public final class MultipartPayload implements WebhookPayload {
+
+    /**
+     * The default maximum size of a payload, the upload limit of Discord.
+     */
+    public static final long DEFAULT_MAX_SIZE = 10L * 1024 * 1024;
+
+    /**
+     * The maximum amount of files of a Discord message.
+     */
+    public static final int MAX_FILES = 10;
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final String boundary;
+    private final byte[] json;
+
+    private final List<Part> parts = new ArrayList<>();
+
+    /**
+     * The maximum size of this payload, in bytes.
+     */
+    @Getter
+    private final long maxSize;
+
+    private long length;
+
+    /**
+     * Creates a new multipart payload with a JSON payload and a maximum size.
+     *
+     * @param json the JSON payload, sent as the {@code payload_json} part
+     * @param maxSize the maximum size of this payload, in bytes
+     *
+     * @throws IOException if the JSON payload can not be written
+     * @throws IllegalArgumentException if the JSON payload exceeds the maximum size
+     */
+    public MultipartPayload(@NotNull WebhookPayload json, long maxSize) throws IOException {
+        this.maxSize = maxSize;
+        boundary = "BeansLib" + Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+        long size = json.getContentLength();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(size > 0 && size < maxSize ? (int) size : 512);
+
+        json.writeTo(stream);
+        this.json = stream.toByteArray();
+
+        length = header("payload_json", null, "application/json").length + this.json.length + 2;
+        length += closing().length;
+
+        checkSize(length);
+    }
+
+    /**
+     * Creates a new multipart payload with a JSON payload and the {@link #DEFAULT_MAX_SIZE}.
+     *
+     * @param json the JSON payload, sent as the {@code payload_json} part
+     *
+     * @throws IOException if the JSON payload can not be written
+     */
+    public MultipartPayload(@NotNull WebhookPayload json) throws IOException {
+        this(json, DEFAULT_MAX_SIZE);
+    }
+
+    private void checkSize(long length) {
+        if (length > maxSize)
+            throw new IllegalArgumentException("Payload size " + length + " exceeds the limit of " + maxSize);
+    }
+
+    private byte[] header(String name, String fileName, String type) {
+        StringBuilder builder = new StringBuilder("--").append(boundary).append("\r\n")
+                .append("Content-Disposition: form-data; name=\"").append(name).append('"');
+
+        if (fileName != null)
+            builder.append("; filename=\"").append(fileName.replace("\"", "%22")).append('"');
+
+        builder.append("\r\nContent-Type: ").append(type).append("\r\n\r\n");
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] closing() {
+        return ("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Adds a file to this payload, with a different file name.
+     *
+     * @param name the file name shown in Discord
+     * @param file the file
+     *
+     * @return a reference of this payload
+     * @throws IllegalArgumentException if the file doesn't exist, or it exceeds the maximum size
+     *          or the maximum amount of files
+     */
+    @NotNull
+    public MultipartPayload addFile(@NotNull String name, @NotNull File file) {
+        Objects.requireNonNull(name);
+
+        if (!file.isFile())
+            throw new IllegalArgumentException("File " + file + " doesn't exist");
+
+        if (parts.size() >= MAX_FILES)
+            throw new IllegalArgumentException("A message can not have more than " + MAX_FILES + " files");
+
+        String type = URLConnection.guessContentTypeFromName(name);
+
+        Part part = new Part(file, file.length(),
+                header("files[" + parts.size() + "]", name, type != null ? type : "application/octet-stream"));
+
+        long length = this.length + part.header.length + part.size + 2;
+        checkSize(length);
+
+        parts.add(part);
+        this.length = length;
+
+        return this;
+    }
+
+    /**
+     * Adds a file to this payload.
+     *
+     * @param file the file
+     *
+     * @return a reference of this payload
+     * @throws IllegalArgumentException if the file doesn't exist, or it exceeds the maximum size
+     *          or the maximum amount of files
+     */
+    @NotNull
+    public MultipartPayload addFile(@NotNull File file) {
+        return addFile(file.getName(), file);
+    }
+
+    /**
+     * Returns the amount of files of this payload.
+     *
+     * @return the amount of files
+     */
+    public int getFileCount() {
+        return parts.size();
+    }
+
+    @NotNull
+    @Override
+    public String getContentType() {
+        return "multipart/form-data; boundary=" + boundary;
+    }
+
+    @Override
+    public long getContentLength() {
+        return length;
+    }
+
+    @Override
+    public void writeTo(@NotNull OutputStream stream) throws IOException {
+        stream.write(header("payload_json", null, "application/json"));
+        stream.write(json);
+        stream.write(CRLF);
+
+        WritableByteChannel target = null;
+
+        for (Part part : parts) {
+            stream.write(part.header);
+
+            if (target == null) {
+                stream.flush();
+                target = Channels.newChannel(stream);
+            }
+
+            try (FileChannel channel = FileChannel.open(part.file.toPath(), StandardOpenOption.READ)) {
+                long position = 0;
+
+                while (position < part.size) {
+                    long count = channel.transferTo(position, part.size - position, target);
+                    if (count <= 0) throw new EOFException("File " + part.file + " changed during the upload");
+
+                    position += count;
+                }
+            }
+
+            stream.write(CRLF);
+        }
+
+        stream.write(closing());
+    }
+
+    private static class Part {
+
+        private final File file;
+        private final long size;
+        private final byte[] header;
+
+        private Part(File file, long size, byte[] header) {
+            this.file = file;
+            this.size = size;
+            this.header = header;
+        }
+    }
+}
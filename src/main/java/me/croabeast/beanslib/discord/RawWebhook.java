@@ -2,20 +2,18 @@ package me.croabeast.beanslib.discord;
 
 import lombok.AccessLevel;
 import lombok.Getter;
-import lombok.Setter;
-import lombok.experimental.Accessors;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
-import javax.net.ssl.HttpsURLConnection;
 import java.awt.*;
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.lang.reflect.Array;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.*;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A class that represents a raw webhook for sending messages to a Discord channel.
@@ -31,9 +29,11 @@ import java.util.*;
  * text-to-speech (TTS) settings.
  *
  * <p> Finally, call the {@link #execute()} method to send the message to the Discord
- * channel.
+ * channel, or {@link #executeAsync()} to send it using the {@link WebhookDispatcher}. Sent
+ * messages can be edited using {@link #editAsync(String)}, or {@link LiveWebhookMessage}
+ * for messages that are updated frequently.
  *
- * <p> Note: This class requires the Apache Commons Lang and JSON libraries, as well as Java 11 or higher.
+ * <p> Note: This class requires the Apache Commons Lang library.
  *
  * @author Kihsomray (forked by CroaBeast)
  * @since 1.1
@@ -45,15 +45,19 @@ public class RawWebhook {
      */
     private final List<EmbedObject> embeds = new ArrayList<>();
 
+    private final List<String> fileNames = new ArrayList<>();
+    private final List<File> files = new ArrayList<>();
+
     @Getter(AccessLevel.PRIVATE)
     private final String url, token, message;
 
     private String content, username, avatarUrl;
 
-    @Accessors(chain = true)
-    @Setter
     private boolean tts;
 
+    private WebhookTemplate template;
+    private String templateMessage;
+
     /**
      * Constructs a new RawWebhook instance with the specified URL, token and message.
      *
@@ -77,9 +81,46 @@ public class RawWebhook {
      * @param embed an embed object
      */
     public void addEmbed(EmbedObject embed) {
+        template = null;
         embeds.add(embed);
     }
 
+    /**
+     * Adds a file attachment, sent with the message using a {@link MultipartPayload}.
+     * The file is streamed from the disk when the webhook is sent.
+     *
+     * @param name the file name shown in Discord
+     * @param file the file
+     *
+     * @return the object's instance
+     * @throws IllegalArgumentException if the file doesn't exist or it's bigger than
+     *          {@link MultipartPayload#DEFAULT_MAX_SIZE}
+     */
+    public RawWebhook addFile(@NotNull String name, @NotNull File file) {
+        if (!file.isFile())
+            throw new IllegalArgumentException("File " + file + " doesn't exist");
+
+        if (file.length() > MultipartPayload.DEFAULT_MAX_SIZE)
+            throw new IllegalArgumentException("File " + file + " is bigger than the upload limit");
+
+        fileNames.add(Objects.requireNonNull(name));
+        files.add(file);
+        return this;
+    }
+
+    /**
+     * Adds a file attachment, sent with the message using a {@link MultipartPayload}.
+     *
+     * @param file the file
+     *
+     * @return the object's instance
+     * @throws IllegalArgumentException if the file doesn't exist or it's bigger than
+     *          {@link MultipartPayload#DEFAULT_MAX_SIZE}
+     */
+    public RawWebhook addFile(@NotNull File file) {
+        return addFile(file.getName(), file);
+    }
+
     @NotNull
     private String replace(String string) {
         if (StringUtils.isBlank(string))
@@ -98,6 +139,7 @@ public class RawWebhook {
      */
     public RawWebhook setContent(String text) {
         content = replace(text);
+        template = null;
         return this;
     }
 
@@ -108,6 +150,7 @@ public class RawWebhook {
      */
     public RawWebhook setUsername(String text) {
         username = replace(text);
+        template = null;
         return this;
     }
 
@@ -118,160 +161,272 @@ public class RawWebhook {
      */
     public RawWebhook setAvatarUrl(String url) {
         avatarUrl = replace(url);
+        template = null;
         return this;
     }
 
-    private JSONObject registerContent(JSONObject json) {
-        if (embeds.isEmpty()) return json;
-        List<JSONObject> embedObjects = new ArrayList<>();
+    /**
+     * Sets if the webhook message is text-to-speech.
+     * @param tts if the message is text-to-speech
+     * @return the object's instance
+     */
+    public RawWebhook setTts(boolean tts) {
+        this.tts = tts;
+        template = null;
+        return this;
+    }
 
-        for (EmbedObject embed : embeds) {
-            JSONObject jsonEmbed = new JSONObject().
-                    put("description", embed.getDescription()).
-                    put("url", embed.getUrl()).
-                    put("title", embed.getTitle());
+    /**
+     * Marks this webhook as an unmodified render of a template, so its payload can be
+     * created from the pre-encoded parts of the template.
+     *
+     * @param template the template
+     * @param message the rendered message
+     * @return the object's instance
+     */
+    RawWebhook fromTemplate(WebhookTemplate template, String message) {
+        this.template = template;
+        templateMessage = message;
+        return this;
+    }
 
-            if (embed.getColor() != null) {
-                Color color = embed.getColor();
-                int rgb = color.getRed();
+    private static void writeObject(JsonWriter writer, String name, String... pairs) throws IOException {
+        boolean empty = true;
+        for (int i = 1; i < pairs.length; i += 2)
+            if (pairs[i] != null) empty = false;
 
-                rgb = (rgb << 8) + color.getGreen();
-                rgb = (rgb << 8) + color.getBlue();
+        if (empty) return;
 
-                jsonEmbed.put("color", rgb);
-            }
+        writer.name(name).beginObject();
 
-            String footerText = embed.getFooterText(),
-                    footerIcon = embed.getFooterIcon(),
-                    image = embed.getImage(),
-                    thumbnail = embed.getThumbnail();
-
-            EmbedObject.Author author = embed.getAuthor();
-            List<EmbedObject.Field> fields = embed.getFields();
-
-            if (footerText != null || footerIcon != null)
-                jsonEmbed.put("footer", new JSONObject().
-                        put("text", footerText).
-                        put("icon_url", footerIcon)
-                );
-
-            if (image != null)
-                jsonEmbed.put("image",
-                        new JSONObject().put("url", image)
-                );
-
-            if (thumbnail != null)
-                jsonEmbed.put("thumbnail",
-                        new JSONObject().put("url", thumbnail)
-                );
-
-            if (author != null) {
-                jsonEmbed.put("author", new JSONObject().
-                        put("name", author.getName()).
-                        put("url", author.getUrl()).
-                        put("icon_url", author.getIconUrl())
-                );
-            }
+        for (int i = 0; i < pairs.length; i += 2)
+            if (pairs[i + 1] != null) writer.name(pairs[i]).value(pairs[i + 1]);
+
+        writer.endObject();
+    }
+
+    private static void writeString(JsonWriter writer, String name, String value) throws IOException {
+        if (value != null) writer.name(name).value(value);
+    }
+
+    private static void writeEmbed(JsonWriter writer, EmbedObject embed) throws IOException {
+        writer.beginObject();
+
+        writeString(writer, "title", embed.getTitle());
+        writeString(writer, "description", embed.getDescription());
+        writeString(writer, "url", embed.getUrl());
+
+        Color color = embed.getColor();
+        if (color != null) writer.name("color").value(color.getRGB() & 0xFFFFFF);
+
+        writeObject(writer, "footer",
+                "text", embed.getFooterText(),
+                "icon_url", embed.getFooterIcon());
+
+        writeObject(writer, "image", "url", embed.getImage());
+        writeObject(writer, "thumbnail", "url", embed.getThumbnail());
+
+        EmbedObject.Author author = embed.getAuthor();
+        if (author != null)
+            writeObject(writer, "author",
+                    "name", author.getName(),
+                    "url", author.getUrl(),
+                    "icon_url", author.getIconUrl());
 
-            if (!fields.isEmpty()) {
-                jsonEmbed.put("fields", fields.stream().map(f ->
-                        new JSONObject().
-                                put("inline", f.isInLine()).
-                                put("name", f.getName()).
-                                put("value", f.getValue())
-                ).toArray());
+        List<EmbedObject.Field> fields = embed.getFields();
+
+        if (!fields.isEmpty()) {
+            writer.name("fields").beginArray();
+
+            for (EmbedObject.Field field : fields) {
+                writer.beginObject();
+
+                writeString(writer, "name", field.getName());
+                writeString(writer, "value", field.getValue());
+
+                writer.name("inline").value(field.isInLine()).endObject();
             }
 
-            embedObjects.add(jsonEmbed);
+            writer.endArray();
         }
 
-        return json.put("embeds", embedObjects.toArray());
+        writer.endObject();
+    }
+
+    private static void writeJson(OutputStream stream, String content, String username,
+                                  String avatarUrl, boolean tts, List<EmbedObject> embeds) throws IOException
+    {
+        JsonWriter writer = new JsonWriter(stream).beginObject();
+
+        writeString(writer, "content", content);
+        writeString(writer, "username", username);
+        writeString(writer, "avatar_url", avatarUrl);
+
+        writer.name("tts").value(tts);
+
+        if (!embeds.isEmpty()) {
+            writer.name("embeds").beginArray();
+            for (EmbedObject embed : embeds) writeEmbed(writer, embed);
+
+            writer.endArray();
+        }
+
+        writer.endObject().flush();
     }
 
     /**
-     * Executes the webhook by sending the message to the channel.
+     * Creates the payload of the request that sends this webhook. The JSON is written
+     * directly to the output stream of the connection when the request is sent.
      *
-     * @throws IOException if it has an error connecting to the url or if the url is invalid
-     * @throws NullPointerException if there is no content or embeds to display
+     * <p> If this webhook was rendered from a {@link WebhookTemplate} and not modified,
+     * the pre-encoded payload of the template is used.
+     *
+     * <p> If this webhook has files, the JSON is sent with the files in a {@link MultipartPayload}.
+     *
+     * @return the payload
+     * @throws NullPointerException if there is no content to display
+     * @throws IllegalArgumentException if the files exceed the upload limit
      */
-    public void execute() throws IOException {
+    @NotNull
+    public WebhookPayload toPayload() {
+        WebhookPayload json = toJsonPayload();
+        if (files.isEmpty()) return json;
+
+        try {
+            MultipartPayload payload = new MultipartPayload(json);
+            for (int i = 0; i < files.size(); i++)
+                payload.addFile(fileNames.get(i), files.get(i));
+
+            return payload;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private WebhookPayload toJsonPayload() {
+        if (template != null) return template.toPayload(templateMessage);
+
         if (content == null)
             throw new NullPointerException("Set a content in the embed");
 
-        JSONObject json = new JSONObject().
-                put("avatar_url", avatarUrl).
-                put("content", content).
-                put("username", username).
-                put("tts", tts);
+        final String content = this.content, username = this.username, avatarUrl = this.avatarUrl;
+        final boolean tts = this.tts;
+        final List<EmbedObject> embeds = new ArrayList<>(this.embeds);
 
-        json = registerContent(json);
+        return new WebhookPayload() {
+            @NotNull
+            public String getContentType() {
+                return "application/json";
+            }
 
-        URL url = new URL(this.url);
-        HttpsURLConnection c = (HttpsURLConnection) url.openConnection();
+            public void writeTo(@NotNull OutputStream stream) throws IOException {
+                writeJson(stream, content, username, avatarUrl, tts, embeds);
+            }
+        };
+    }
 
-        c.addRequestProperty("Content-Type", "application/json");
-        c.addRequestProperty("User-Agent",
-                "Java-DiscordWebhook-BY-Gelox_");
+    /**
+     * Executes the webhook by sending the message to the channel, in the current thread.
+     *
+     * <p> If the request fails because of the connection or a server error, it's stored
+     * in the enabled {@link WebhookOutbox}, if any, to be sent again later.
+     *
+     * @throws IOException if it has an error connecting to the url or if the url is invalid
+     * @throws NullPointerException if there is no content or embeds to display
+     */
+    public void execute() throws IOException {
+        WebhookPayload payload = toPayload();
+        WebhookOutbox outbox = WebhookOutbox.getDefault();
+
+        WebhookResponse response;
+        try {
+            response = WebhookTransport.DEFAULT.execute("POST", url, payload);
+        } catch (IOException e) {
+            if (outbox != null) outbox.store("POST", url, payload);
+            throw e;
+        }
 
-        c.setDoOutput(true);
-        c.setRequestMethod("POST");
+        if (response.isSuccess()) return;
 
-        OutputStream stream = c.getOutputStream();
+        if (outbox != null && response.getStatus() >= 500)
+            outbox.store("POST", url, payload);
 
-        stream.write((json + "").getBytes(StandardCharsets.UTF_8));
-        stream.flush();
-        stream.close();
+        throw new WebhookException(response);
+    }
 
-        c.getInputStream().close();
-        c.disconnect();
+    /**
+     * Executes the webhook asynchronously, using the shared {@link WebhookDispatcher}.
+     *
+     * @return the future of the response
+     * @throws NullPointerException if there is no content or embeds to display
+     */
+    @NotNull
+    public CompletableFuture<WebhookResponse> executeAsync() {
+        return executeAsync(false);
     }
 
-    static class JSONObject {
+    /**
+     * Executes the webhook asynchronously, using the shared {@link WebhookDispatcher}.
+     *
+     * <p> If {@code wait} is true, Discord responds with the created message, so its id can
+     * be read using {@link WebhookResponse#getMessageId()} to edit it later. Those requests
+     * are not stored in the {@link WebhookOutbox} if they fail, since the id of a message sent
+     * later could not be known.
+     *
+     * @param wait if Discord should respond with the created message
+     *
+     * @return the future of the response
+     * @throws NullPointerException if there is no content or embeds to display
+     */
+    @NotNull
+    public CompletableFuture<WebhookResponse> executeAsync(boolean wait) {
+        return WebhookDispatcher.getDefault().submit("POST", wait ? withQuery(url, "wait=true") : url, toPayload(), !wait);
+    }
 
-        private final HashMap<String, Object> map = new HashMap<>();
+    /**
+     * Edits a message sent by this webhook, replacing it with the content of this object,
+     * using the shared {@link WebhookDispatcher}.
+     *
+     * <p> Note: editing uses a {@code PATCH} request, that requires Java 11 or higher. If
+     * it's not supported, the future fails with an {@link UnsupportedOperationException}.
+     * Failed edits are not stored in the {@link WebhookOutbox}, so they never replace a newer edit.
+     *
+     * @param messageId the id of the message
+     *
+     * @return the future of the response
+     * @throws NullPointerException if there is no content or embeds to display
+     */
+    @NotNull
+    public CompletableFuture<WebhookResponse> editAsync(@NotNull String messageId) {
+        return WebhookDispatcher.getDefault().submit("PATCH", messageUrl(url, messageId), toPayload(), false);
+    }
 
-        JSONObject put(String key, Object value) {
-            if (value != null) map.put(key, value);
-            return this;
-        }
+    /**
+     * Adds a parameter to the query of a URL.
+     *
+     * @param url a URL
+     * @param parameter a parameter, like {@code key=value}
+     *
+     * @return the URL with the parameter
+     */
+    static String withQuery(String url, String parameter) {
+        return url + (url.indexOf('?') < 0 ? '?' : '&') + parameter;
+    }
 
-        private String quote(String string) {
-            return "\"" + string + "\"";
-        }
+    /**
+     * Returns the URL of a message sent by a webhook, keeping the query of the webhook URL.
+     *
+     * @param url the webhook URL
+     * @param messageId the id of the message
+     *
+     * @return the URL of the message
+     */
+    static String messageUrl(String url, String messageId) {
+        int index = url.indexOf('?');
 
-        @Override
-        public String toString() {
-            StringBuilder builder = new StringBuilder();
-            Set<Map.Entry<String, Object>> entrySet = map.entrySet();
-
-            builder.append("{");
-            int i = 0;
-
-            for (Map.Entry<String, Object> entry : entrySet) {
-                builder.append(quote(entry.getKey())).append(":");
-                Object val = entry.getValue();
-
-                if (val instanceof Boolean || val instanceof JSONObject)
-                    builder.append(val);
-                else if (val instanceof Integer)
-                    builder.append(Integer.valueOf(String.valueOf(val)));
-                else if (val instanceof String)
-                    builder.append(quote(String.valueOf(val)));
-                else if (val.getClass().isArray()) {
-                    builder.append("[");
-                    int len = Array.getLength(val);
-
-                    for (int j = 0; j < len; j++) {
-                        String temp = Array.get(val, j).toString();
-                        builder.append(temp).append(j != len - 1 ? "," : "");
-                    }
-                    builder.append("]");
-                }
-
-                builder.append(++i == entrySet.size() ? "}" : ",");
-            }
+        String base = index < 0 ? url : url.substring(0, index);
+        if (base.endsWith("/")) base = base.substring(0, base.length() - 1);
 
-            return builder.toString();
-        }
+        return base + "/messages/" + Objects.requireNonNull(messageId) + (index < 0 ? "" : url.substring(index));
     }
 }
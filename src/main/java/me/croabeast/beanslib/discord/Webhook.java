@@ -1,10 +1,8 @@
 package me.croabeast.beanslib.discord;
 
-import lombok.var;
 import org.bukkit.configuration.ConfigurationSection;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -19,7 +17,12 @@ import java.util.concurrent.CompletableFuture;
  * set in the configuration section and is not provided as a parameter, an empty message
  * will be sent.
  *
- * <p> {@link #sendAsync()} can be used to send asynchronously using {@link CompletableFuture}.
+ * <p> The section is compiled once in a {@link WebhookTemplate}, so creating many webhooks
+ * from the same section only replaces the message token of the compiled template.
+ *
+ * <p> {@link #sendAsync()} can be used to send asynchronously using the {@link WebhookDispatcher}
+ * of the lib, that keeps the order of the messages and follows the rate limits of Discord.
+ * {@link #sendBatched(String)} merges many messages of the same section in a single request.
  *
  * @author Kihsomray (forked by CroaBeast)
  * @since 1.1
@@ -48,7 +51,7 @@ public class Webhook {
      */
     public Webhook(@NotNull ConfigurationSection sec, String token, String message) {
         this.sec = sec;
-        enabled = sec.getBoolean("enabled");
+        enabled = WebhookTemplate.of(sec, token).isEnabled();
 
         if (message != null)
             webhook = register(token, message);
@@ -80,82 +83,15 @@ public class Webhook {
     }
 
     /**
-     * Registers the {@link #webhook} with all the necessary items to display.
+     * Registers the {@link #webhook} with all the necessary items to display, using the
+     * compiled {@link WebhookTemplate} of the section.
      *
      * @param token a token
      * @param message a message
      * @return the requested webhook
      */
     private RawWebhook register(String token, String message) {
-        RawWebhook hook;
-        try {
-            hook = new RawWebhook(sec.getString("url"), token, message);
-        } catch (NullPointerException e) {
-            return null;
-        }
-
-        hook.setContent(sec.getString("content")).
-                setTts(sec.getBoolean("tts")).
-                setAvatarUrl(sec.getString("avatar-url")).
-                setUsername(sec.getString("username"));
-
-        var s = sec.getConfigurationSection("embeds");
-        if (s == null) {
-            notRegistered = false;
-            return hook;
-        }
-
-        var keys = new ArrayList<>(s.getKeys(false));
-        if (keys.isEmpty()) {
-            notRegistered = false;
-            return hook;
-        }
-
-        for (var key : keys) {
-            var em = s.getConfigurationSection(key);
-            if (em == null) continue;
-
-            var embed = new EmbedObject(token, message).
-                    setTitle(em.getString("title")).
-                    setDescription(em.getString("description")).
-                    setUrl(em.getString("url")).
-                    setFooter(
-                            em.getString("footer.text"),
-                            em.getString("footer.icon-url")
-                    ).
-                    setThumbnail(em.getString("thumbnail-url")).
-                    setImage(em.getString("image-url")).
-                    setAuthor(
-                            em.getString("author.name"),
-                            em.getString("author.url"),
-                            em.getString("author.icon-url")
-                    ).
-                    setColor(em.getString("color"));
-
-            em = em.getConfigurationSection("fields");
-            if (em == null) {
-                hook.addEmbed(embed);
-                continue;
-            }
-
-            var fields = new ArrayList<>(em.getKeys(false));
-            if (fields.isEmpty()) {
-                hook.addEmbed(embed);
-                continue;
-            }
-
-            for (var f : fields) {
-                var fl = em.getConfigurationSection(f);
-                if (fl != null)
-                    embed.addField(
-                            fl.getString("name"),
-                            fl.getString("value"),
-                            fl.getBoolean("inline")
-                    );
-            }
-
-            hook.addEmbed(embed);
-        }
+        RawWebhook hook = WebhookTemplate.of(sec, token).render(message);
 
         notRegistered = false;
         return hook;
@@ -209,28 +145,83 @@ public class Webhook {
     }
 
     /**
-     * Sends the webhook asynchronously. See {@link #send(String, String)} for more info.
+     * Sends the webhook asynchronously, using the shared {@link WebhookDispatcher}. The
+     * webhook is registered in the current thread and sent in the thread of the dispatcher.
+     *
+     * <p> If any error happens when connecting to its url, will print an error in the console.
      *
      * @param token a token
      * @param message a message if no message was declared in the constructor
+     *
+     * @return a future that completes with true if was correctly sent, false otherwise
      */
-    public void sendAsync(String token, String message) {
-        CompletableFuture.runAsync(() -> send(token, message));
+    public CompletableFuture<Boolean> sendAsync(String token, String message) {
+        if (!enabled) return CompletableFuture.completedFuture(false);
+
+        if (message != null && notRegistered)
+            webhook = register(token, message);
+
+        if (webhook == null) return CompletableFuture.completedFuture(false);
+
+        try {
+            return webhook.executeAsync().handle((r, e) -> {
+                if (e == null) return true;
+
+                e.printStackTrace();
+                return false;
+            });
+        } catch (Exception e) {
+            e.printStackTrace();
+            return CompletableFuture.completedFuture(false);
+        }
     }
 
     /**
-     * Sends the webhook asynchronously. See {@link #send(String)} for more info.
+     * Sends the webhook asynchronously. See {@link #sendAsync(String, String)} for more info.
      *
      * @param message a message if no message was declared in the constructor
+     * @return a future that completes with true if was correctly sent, false otherwise
+     */
+    public CompletableFuture<Boolean> sendAsync(String message) {
+        return sendAsync("{message}", message);
+    }
+
+    /**
+     * Sends the webhook asynchronously. See {@link #sendAsync(String, String)} for more info.
+     *
+     * @return a future that completes with true if was correctly sent, false otherwise
      */
-    public void sendAsync(String message) {
-        CompletableFuture.runAsync(() -> send(message));
+    public CompletableFuture<Boolean> sendAsync() {
+        return sendAsync(null);
     }
 
     /**
-     * Sends the webhook asynchronously. See {@link #send()} for more info.
+     * Adds a message to the shared {@link WebhookBatcher} of the section, so it's merged
+     * with the next messages of the same section and sent in a single request.
+     *
+     * <p> Useful for high-volume relays, like chat or console lines, that would reach the
+     * rate limits of Discord if every line is sent in its own request.
+     *
+     * @param token a token
+     * @param message a message, can not be null
+     *
+     * @return a future that completes with true if the batch of the message was sent, false otherwise
+     */
+    public CompletableFuture<Boolean> sendBatched(String token, String message) {
+        if (!enabled || message == null) return CompletableFuture.completedFuture(false);
+
+        WebhookTemplate template = WebhookTemplate.of(sec, token);
+        return WebhookBatcher.of(template).add(message);
+    }
+
+    /**
+     * Adds a message to the shared {@link WebhookBatcher} of the section. See
+     * {@link #sendBatched(String, String)} for more info.
+     *
+     * @param message a message, can not be null
+     * @return a future that completes with true if the batch of the message was sent, false otherwise
      */
-    public void sendAsync() {
-        CompletableFuture.runAsync(this::send);
+    public CompletableFuture<Boolean> sendBatched(String message) {
+        return sendBatched("{message}", message);
     }
 }
@@ -0,0 +1,257 @@
+package me.croabeast.beanslib.discord;
+
+import lombok.Getter;
+import me.croabeast.beanslib.Beans;
+import me.croabeast.beanslib.map.LruCache;
+import me.croabeast.beanslib.misc.DisableHook;
+import me.croabeast.beanslib.utility.Exceptions;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Collects the messages of a {@link WebhookTemplate} for a short window and sends them
+ * merged in a single webhook request, instead of sending one request per message.
+ *
+ * <p> The messages are joined by line breaks in the texts of the template, and the embeds
+ * of the template are repeated for every message. A batch is sent when:
+ * <ul>
+ *     <li>its window elapses, counting from its first message;</li>
+ *     <li>the next message doesn't fit, because the merged content would exceed
+ *     {@link #MAX_CONTENT} characters or the embeds would exceed {@link #MAX_EMBEDS};</li>
+ *     <li>{@link #flush()} is called, or the plugin of the lib is disabled.</li>
+ * </ul>
+ *
+ * <pre> {@code
+ * WebhookBatcher batcher = WebhookBatcher.of(WebhookTemplate.of(section));
+ * for (String line : lines) batcher.add(line);
+ * } </pre>
+ *
+ * <p> Templates that don't use the message are never merged, since all their messages
+ * would be the same.
+ *
+ * @author CroaBeast
+ * @since 1.4
+ */
+public final class WebhookBatcher {
+
+    /**
+     * The maximum amount of characters of the content of a Discord message.
+     */
+    public static final int MAX_CONTENT = 2000;
+    /**
+     * The maximum amount of embeds of a Discord message.
+     */
+    public static final int MAX_EMBEDS = 10;
+
+    private static final LruCache<WebhookTemplate, WebhookBatcher> BATCHERS = new LruCache<>(64);
+    private static final Set<WebhookBatcher> ACTIVE = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    private static boolean hooked = false;
+
+    /**
+     * The template of the merged messages.
+     */
+    @Getter
+    private final WebhookTemplate template;
+
+    /**
+     * The time, in milliseconds, that a batch waits for more messages.
+     */
+    @Getter
+    private final long window;
+
+    private final List<String> messages = new ArrayList<>();
+    private final List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+
+    private int joinedLength = 0;
+    private ScheduledFuture<?> scheduled;
+
+    /**
+     * Creates a new batcher.
+     *
+     * @param template the template of the merged messages
+     * @param window the time that a batch waits for more messages, must be positive
+     * @param unit the unit of the window
+     */
+    public WebhookBatcher(@NotNull WebhookTemplate template, long window, @NotNull TimeUnit unit) {
+        this.template = Objects.requireNonNull(template);
+        this.window = unit.toMillis(Exceptions.validate(l -> l > 0, window));
+    }
+
+    private boolean fits(String message) {
+        if (messages.isEmpty()) return true;
+        if (!template.usesMessage()) return false;
+
+        if ((messages.size() + 1) * template.getEmbedCount() > MAX_EMBEDS)
+            return false;
+
+        int length = joinedLength + 1 + message.length();
+        return template.getContentLength(length) <= MAX_CONTENT;
+    }
+
+    private boolean isFull() {
+        if (!template.usesMessage()) return true;
+
+        int embeds = template.getEmbedCount();
+        if (embeds > 0 && (messages.size() + 1) * embeds > MAX_EMBEDS) return true;
+
+        return template.getContentLength(joinedLength + 1) > MAX_CONTENT;
+    }
+
+    /**
+     * Adds a message to the current batch. If the message doesn't fit in the current batch,
+     * the current batch is sent first.
+     *
+     * @param message a message, can not be null
+     * @return a future that completes with true if the batch of the message was sent, false otherwise
+     */
+    @NotNull
+    public CompletableFuture<Boolean> add(@NotNull String message) {
+        Objects.requireNonNull(message);
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        Batch full = null, ready = null;
+
+        synchronized (this) {
+            if (!fits(message)) full = take();
+
+            joinedLength += (messages.isEmpty() ? 0 : 1) + message.length();
+            messages.add(message);
+            futures.add(future);
+
+            if (isFull()) ready = take();
+            else if (scheduled == null) {
+                ACTIVE.add(this);
+                scheduled = timer().schedule(this::flush, window, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (full != null) full.send(false);
+        if (ready != null) ready.send(false);
+
+        return future;
+    }
+
+    private Batch take() {
+        if (scheduled != null) {
+            scheduled.cancel(false);
+            scheduled = null;
+        }
+
+        ACTIVE.remove(this);
+        if (messages.isEmpty()) return null;
+
+        Batch batch = new Batch(new ArrayList<>(messages), new ArrayList<>(futures));
+
+        messages.clear();
+        futures.clear();
+        joinedLength = 0;
+
+        return batch;
+    }
+
+    /**
+     * Sends the current batch, if it has any message.
+     */
+    public void flush() {
+        Batch batch;
+        synchronized (this) {
+            batch = take();
+        }
+
+        if (batch != null) batch.send(false);
+    }
+
+    private void flushNow() {
+        Batch batch;
+        synchronized (this) {
+            batch = take();
+        }
+
+        if (batch != null) batch.send(true);
+    }
+
+    /**
+     * Returns the amount of messages of the current batch.
+     *
+     * @return the amount of pending messages
+     */
+    public synchronized int getPending() {
+        return messages.size();
+    }
+
+    private class Batch {
+
+        private final List<String> messages;
+        private final List<CompletableFuture<Boolean>> futures;
+
+        private Batch(List<String> messages, List<CompletableFuture<Boolean>> futures) {
+            this.messages = messages;
+            this.futures = futures;
+        }
+
+        private void complete(boolean result) {
+            for (CompletableFuture<Boolean> future : futures) future.complete(result);
+        }
+
+        private void send(boolean sync) {
+            try {
+                RawWebhook webhook = template.render(messages);
+                if (webhook == null) {
+                    complete(false);
+                    return;
+                }
+
+                if (sync) {
+                    webhook.execute();
+                    complete(true);
+                    return;
+                }
+
+                webhook.executeAsync().whenComplete((r, e) -> {
+                    if (e != null) e.printStackTrace();
+                    complete(e == null);
+                });
+            } catch (Exception e) {
+                e.printStackTrace();
+                complete(false);
+            }
+        }
+    }
+
+    /**
+     * Sends the pending batches of all the batchers in the current thread. Called
+     * automatically when the plugin of the lib is disabled.
+     */
+    public static void shutdown() {
+        for (WebhookBatcher batcher : new ArrayList<>(ACTIVE)) batcher.flushNow();
+    }
+
+    private static synchronized ScheduledExecutorService timer() {
+        if (!hooked) {
+            Plugin plugin = null;
+            try {
+                plugin = Beans.getPlugin();
+            } catch (Exception ignored) {}
+
+            hooked = DisableHook.register(plugin, WebhookBatcher::shutdown);
+        }
+
+        return WebhookTimer.get();
+    }
+
+    /**
+     * Returns the shared batcher of a template, creating it with a window of one second
+     * if needed.
+     *
+     * @param template a template
+     * @return the batcher of the template
+     */
+    @NotNull
+    public static WebhookBatcher of(@NotNull WebhookTemplate template) {
+        return BATCHERS.computeIfAbsent(template, t -> new WebhookBatcher(t, 1, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,573 @@
+package me.croabeast.beanslib.discord;
+
+import lombok.Getter;
+import lombok.Setter;
+import me.croabeast.beanslib.Beans;
+import me.croabeast.beanslib.misc.DisableHook;
+import me.croabeast.beanslib.utility.Exceptions;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sends webhook requests on a dedicated thread, outside the main thread of the server.
+ *
+ * <p> Requests are stored in a bounded queue, and the requests to the same URL (ignoring
+ * its query) are always sent in the order they were submitted. The dispatcher follows the
+ * rate limits of Discord: a {@code 429} response delays the URL (or all the URLs, if the
+ * limit is global) for the {@code retry_after} time, and an exhausted rate limit bucket
+ * delays all its URLs until the bucket resets. Failed connections and server errors are
+ * retried a few times, and then stored in its {@link WebhookOutbox}, if any and if the
+ * request is durable.
+ *
+ * <pre> {@code
+ * WebhookDispatcher.getDefault()
+ *         .submit(url, WebhookPayload.json("{\"content\":\"Hello\"}"))
+ *         .thenAccept(r -> System.out.println(r.getStatus()));
+ * } </pre>
+ *
+ * @author CroaBeast
+ * @since 1.4
+ */
+public final class WebhookDispatcher {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long BACKOFF = 1000;
+
+    private static WebhookDispatcher defaultDispatcher, directDispatcher;
+    private static boolean shutdown = false;
+
+    private final WebhookTransport transport;
+
+    /**
+     * The maximum amount of pending requests.
+     */
+    @Getter
+    private final int capacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition(), drained = lock.newCondition();
+
+    private final Map<String, Lane> lanes = new LinkedHashMap<>();
+    private final Map<String, Long> buckets = new HashMap<>();
+
+    private long globalUntil = 0;
+    private int pending = 0;
+
+    private boolean closed = false, stopped = false;
+    private Task current = null;
+
+    private final Thread worker;
+
+    /**
+     * The outbox that stores the requests that could not be delivered after all their
+     * attempts, or null to discard them.
+     */
+    @Getter @Setter
+    private volatile WebhookOutbox outbox;
+
+    /**
+     * Creates a new dispatcher and starts its thread.
+     *
+     * @param name the name of the thread
+     * @param capacity the maximum amount of pending requests, must be positive
+     * @param transport the transport that sends the requests
+     */
+    public WebhookDispatcher(String name, int capacity, @NotNull WebhookTransport transport) {
+        this.capacity = Exceptions.validate(i -> i > 0, capacity);
+        this.transport = Objects.requireNonNull(transport);
+
+        worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Creates a new dispatcher using the {@link WebhookTransport#DEFAULT} transport.
+     *
+     * @param name the name of the thread
+     * @param capacity the maximum amount of pending requests, must be positive
+     */
+    public WebhookDispatcher(String name, int capacity) {
+        this(name, capacity, WebhookTransport.DEFAULT);
+    }
+
+    /**
+     * Creates a dispatcher without a thread, that sends every request in the calling
+     * thread with a single attempt.
+     */
+    private WebhookDispatcher(WebhookTransport transport) {
+        this.capacity = 1;
+        this.transport = transport;
+        worker = null;
+    }
+
+    /**
+     * Checks if the transport of this dispatcher can send requests with an HTTP method.
+     *
+     * @param method the HTTP method, like {@code PATCH}
+     * @return true if the method is supported, false otherwise
+     */
+    public boolean supports(@NotNull String method) {
+        return transport.supports(method);
+    }
+
+    /**
+     * Submits a request. The future completes with the response if the request was
+     * successful, or exceptionally if it failed, the queue is full, the dispatcher
+     * is closed or the transport doesn't support the method.
+     *
+     * <p> Requests that are not durable are never stored in the outbox, so they are not
+     * sent again later. Use it for requests whose caller retries them on its own, or that
+     * would be stale by the time they are sent again, like the edits of a message.
+     *
+     * @param method the HTTP method
+     * @param url the URL
+     * @param payload the body, can be null
+     * @param durable if the request is stored in the outbox when it can not be delivered
+     *
+     * @return the future of the response
+     */
+    @NotNull
+    public CompletableFuture<WebhookResponse> submit(@NotNull String method, @NotNull String url, @Nullable WebhookPayload payload, boolean durable) {
+        Task task = new Task(Objects.requireNonNull(method), Objects.requireNonNull(url), payload, durable);
+
+        // unsupported methods fail every time, so they are never retried nor stored
+        if (!transport.supports(method)) {
+            task.future.completeExceptionally(new UnsupportedOperationException(
+                    "The " + method + " method is not supported by the transport, it requires Java 11 or higher"));
+            return task.future;
+        }
+
+        if (worker == null) {
+            try {
+                WebhookResponse response = transport.execute(method, url, payload);
+
+                if (response.isSuccess()) task.future.complete(response);
+                else task.future.completeExceptionally(new WebhookException(response));
+            } catch (Exception e) {
+                task.future.completeExceptionally(e);
+            }
+            return task.future;
+        }
+
+        lock.lock();
+        try {
+            if (closed) {
+                task.future.completeExceptionally(new RejectedExecutionException("Dispatcher is closed"));
+                return task.future;
+            }
+
+            if (pending >= capacity) {
+                task.future.completeExceptionally(new RejectedExecutionException("Webhook queue is full"));
+                return task.future;
+            }
+
+            lanes.computeIfAbsent(laneKey(url), Lane::new).queue.add(task);
+            pending++;
+
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        return task.future;
+    }
+
+    /**
+     * Submits a durable request. See {@link #submit(String, String, WebhookPayload, boolean)}.
+     *
+     * @param method the HTTP method
+     * @param url the URL
+     * @param payload the body, can be null
+     *
+     * @return the future of the response
+     */
+    @NotNull
+    public CompletableFuture<WebhookResponse> submit(@NotNull String method, @NotNull String url, @Nullable WebhookPayload payload) {
+        return submit(method, url, payload, true);
+    }
+
+    /**
+     * Submits a durable {@code POST} request.
+     *
+     * @param url the URL
+     * @param payload the body, can be null
+     *
+     * @return the future of the response
+     */
+    @NotNull
+    public CompletableFuture<WebhookResponse> submit(@NotNull String url, @Nullable WebhookPayload payload) {
+        return submit("POST", url, payload);
+    }
+
+    /**
+     * Returns the amount of requests that were submitted and not completed yet.
+     *
+     * @return the pending requests
+     */
+    public int getPending() {
+        lock.lock();
+        try {
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks if the dispatcher accepts new requests.
+     *
+     * @return true if not closed, false otherwise
+     */
+    public boolean isOpen() {
+        lock.lock();
+        try {
+            return !closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String laneKey(String url) {
+        int index = url.indexOf('?');
+        return index < 0 ? url : url.substring(0, index);
+    }
+
+    private long readyAt(Lane lane) {
+        long ready = Math.max(globalUntil, lane.readyAt);
+        if (lane.bucket == null) return ready;
+
+        Long bucket = buckets.get(lane.bucket);
+        return bucket == null ? ready : Math.max(ready, bucket);
+    }
+
+    private void run() {
+        while (true) {
+            Lane lane = null;
+            Task task = null;
+
+            List<Task> remaining = null;
+
+            lock.lock();
+            try {
+                while (lane == null) {
+                    if (stopped || (closed && pending == 0)) {
+                        remaining = takeAll();
+                        break;
+                    }
+
+                    long now = System.currentTimeMillis(), wait = Long.MAX_VALUE;
+                    Iterator<Lane> iterator = lanes.values().iterator();
+
+                    while (iterator.hasNext()) {
+                        Lane l = iterator.next();
+                        long ready = readyAt(l);
+
+                        if (l.queue.isEmpty()) {
+                            if (ready <= now) iterator.remove();
+                            continue;
+                        }
+
+                        if (ready <= now) {
+                            lane = l;
+                            break;
+                        }
+
+                        wait = Math.min(wait, ready - now);
+                    }
+
+                    if (lane != null) break;
+
+                    try {
+                        if (wait == Long.MAX_VALUE) changed.await();
+                        else changed.await(wait, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        stopped = true;
+                    }
+                }
+
+                if (remaining == null) {
+                    // moves the lane to the end, so every URL gets a turn
+                    lanes.remove(lane.key);
+                    lanes.put(lane.key, lane);
+
+                    current = task = lane.queue.peek();
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (remaining != null) {
+                cancelAll(remaining);
+                return;
+            }
+
+            WebhookResponse response = null;
+            IOException error = null;
+
+            try {
+                response = transport.execute(task.method, task.url, task.payload);
+            } catch (IOException e) {
+                error = e;
+            } catch (Exception e) {
+                error = new IOException(e);
+            }
+
+            handle(lane, task, response, error);
+        }
+    }
+
+    private void handle(Lane lane, Task task, WebhookResponse response, IOException error) {
+        boolean retry = false, store = false;
+        Throwable failure = null;
+
+        lock.lock();
+        try {
+            current = null;
+
+            long now = System.currentTimeMillis();
+            task.attempts++;
+
+            if (response != null) {
+                if (response.getBucket() != null) lane.bucket = response.getBucket();
+
+                if (response.isRateLimited()) {
+                    long until = now + response.getRetryAfterMillis();
+
+                    if (response.isGlobal()) globalUntil = until;
+                    else lane.readyAt = until;
+
+                    // rate limits are not failures, they are retried until the dispatcher stops
+                    task.attempts--;
+                    retry = true;
+                }
+                else {
+                    if (response.getRemaining() == 0) {
+                        long until = now + response.getResetAfterMillis();
+
+                        if (lane.bucket != null) buckets.put(lane.bucket, until);
+                        else lane.readyAt = until;
+                    }
+
+                    if (response.getStatus() >= 500 && task.attempts < MAX_ATTEMPTS) {
+                        lane.readyAt = now + BACKOFF * task.attempts;
+                        retry = true;
+                    }
+                    else if (!response.isSuccess()) {
+                        failure = new WebhookException(response);
+                        store = response.getStatus() >= 500;
+                    }
+                }
+            }
+            else if (task.attempts < MAX_ATTEMPTS) {
+                lane.readyAt = now + BACKOFF * task.attempts;
+                retry = true;
+            }
+            else {
+                failure = error;
+                store = true;
+            }
+
+            // the dispatcher was stopped, so the request is kept for the next run
+            if (retry && stopped) {
+                retry = false;
+                store = true;
+                failure = new CancellationException("Dispatcher was closed");
+            }
+
+            if (!retry) {
+                lane.queue.poll();
+                if (--pending == 0) drained.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (retry) return;
+
+        WebhookOutbox outbox = this.outbox;
+        if (store && task.durable && outbox != null) outbox.store(task.method, task.url, task.payload);
+
+        if (failure != null) task.future.completeExceptionally(failure);
+        else task.future.complete(response);
+    }
+
+    private List<Task> takeAll() {
+        List<Task> tasks = new ArrayList<>();
+
+        // the request being sent is completed by the thread when it's done
+        for (Lane lane : lanes.values())
+            for (Task task : lane.queue)
+                if (task != current) tasks.add(task);
+
+        lanes.clear();
+
+        pending = current != null ? 1 : 0;
+        if (pending == 0) drained.signalAll();
+
+        return tasks;
+    }
+
+    private void cancelAll(List<Task> tasks) {
+        WebhookOutbox outbox = this.outbox;
+
+        for (Task task : tasks) {
+            // requests that were not sent in time are kept for the next run
+            if (task.durable && outbox != null) outbox.store(task.method, task.url, task.payload);
+            task.future.completeExceptionally(new CancellationException("Dispatcher was closed"));
+        }
+    }
+
+    /**
+     * Stops accepting requests, and waits until the pending requests are sent or the
+     * timeout elapses. Requests that were not sent in time are stored in the outbox,
+     * if any, and cancelled.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     */
+    public void close(long timeout, TimeUnit unit) {
+        List<Task> remaining;
+
+        lock.lock();
+        try {
+            closed = true;
+            changed.signalAll();
+
+            long nanos = unit.toNanos(timeout);
+
+            while (pending > 0 && nanos > 0)
+                try {
+                    nanos = drained.awaitNanos(nanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+
+            stopped = true;
+            remaining = takeAll();
+
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        cancelAll(remaining);
+        if (worker == null) return;
+
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the shared dispatcher of the lib, creating it if needed. It's closed
+     * automatically when the plugin of the lib is disabled.
+     *
+     * <p> Bukkit disables the plugin before calling its {@code onDisable} method, so once
+     * the plugin is being disabled, this returns a dispatcher that sends the requests in
+     * the calling thread, with a single attempt, and the requests sent from the
+     * {@code onDisable} method are still delivered.
+     *
+     * @return the shared dispatcher
+     */
+    @NotNull
+    public static synchronized WebhookDispatcher getDefault() {
+        Plugin plugin = null;
+        try {
+            plugin = Beans.getPlugin();
+        } catch (Exception ignored) {}
+
+        if (shutdown || (plugin != null && !plugin.isEnabled())) {
+            if (directDispatcher == null)
+                directDispatcher = new WebhookDispatcher(defaultDispatcher != null ?
+                        defaultDispatcher.transport : WebhookTransport.DEFAULT);
+
+            return directDispatcher;
+        }
+
+        if (defaultDispatcher != null && defaultDispatcher.isOpen())
+            return defaultDispatcher;
+
+        String name = (plugin != null ? plugin.getName() : "BeansLib") + "-Webhooks";
+        WebhookDispatcher dispatcher = new WebhookDispatcher(name, 1024);
+        dispatcher.setOutbox(WebhookOutbox.getDefault());
+
+        DisableHook.register(plugin, () -> closeDefault(5, TimeUnit.SECONDS));
+        return defaultDispatcher = dispatcher;
+    }
+
+    /**
+     * Closes the shared dispatcher of the lib, if any, waiting for its pending requests.
+     * The next requests of the shared dispatcher are sent in the calling thread.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     */
+    static void closeDefault(long timeout, TimeUnit unit) {
+        WebhookDispatcher dispatcher;
+        synchronized (WebhookDispatcher.class) {
+            dispatcher = defaultDispatcher;
+            shutdown = true;
+        }
+
+        if (dispatcher != null) dispatcher.close(timeout, unit);
+    }
+
+    /**
+     * Replaces the shared dispatcher of the lib, closing the previous one.
+     *
+     * @param dispatcher the new dispatcher
+     */
+    public static synchronized void setDefault(@NotNull WebhookDispatcher dispatcher) {
+        WebhookDispatcher old = defaultDispatcher;
+        defaultDispatcher = Objects.requireNonNull(dispatcher);
+
+        shutdown = false;
+        directDispatcher = null;
+
+        if (old != null && old != dispatcher) old.close(5, TimeUnit.SECONDS);
+    }
+
+    private static class Task {
+
+        private final String method, url;
+        private final WebhookPayload payload;
+        private final boolean durable;
+
+        private final CompletableFuture<WebhookResponse> future = new CompletableFuture<>();
+        private int attempts = 0;
+
+        private Task(String method, String url, WebhookPayload payload, boolean durable) {
+            this.method = method;
+            this.url = url;
+            this.payload = payload;
+            this.durable = durable;
+        }
+    }
+
+    private static class Lane {
+
+        private final String key;
+        private final Deque<Task> queue = new ArrayDeque<>();
+
+        private String bucket = null;
+        private long readyAt = 0;
+
+        private Lane(String key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package me.croabeast.beanslib.discord;
+
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * Thrown when Discord responds to a webhook request with an error status code.
+ *
+ * @author CroaBeast
+ * @since 1.4
+ */
+@Getter
+public class WebhookException extends IOException {
+
+    /**
+     * The response of the failed request.
+     */
+    private final WebhookResponse response;
+
+    /**
+     * Creates a new exception for a failed response.
+     *
+     * @param response the response
+     */
+    public WebhookException(@NotNull WebhookResponse response) {
+        super("Webhook request failed: " + response);
+        this.response = response;
+    }
+
+    /**
+     * Returns the HTTP status code of the response.
+     *
+     * @return the status code
+     */
+    public int getStatus() {
+        return response.getStatus();
+    }
+}
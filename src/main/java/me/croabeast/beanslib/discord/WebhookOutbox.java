@@ -0,0 +1,510 @@
+package me.croabeast.beanslib.discord;
+
+import lombok.Getter;
+import me.croabeast.beanslib.misc.DisableHook;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.net.MalformedURLException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * A persistent outbox that stores the webhook requests that could not be delivered, and
+ * sends them again when the endpoint recovers, even after a restart of the server.
+ *
+ * <p> The requests are appended to a single segment file using a {@link FileChannel}.
+ * Every record has a checksum, so a record that was partially written when the server
+ * stopped is discarded when the file is opened again. The file is synced to the disk in
+ * batches instead of once per record, and it's truncated once all its records are sent.
+ *
+ * <p> Stored requests are sent in order by a dedicated thread. Failed connections and
+ * server errors are retried with an exponential backoff, a limited amount of times.
+ * Requests rejected by the endpoint (like an invalid payload) and requests that
+ * can never be sent (like an invalid URL or an unsupported method) are discarded.
+ *
+ * <pre> {@code
+ * // in the onEnable method, to send the requests stored in the last run
+ * lib.enableWebhookOutbox();
+ * } </pre>
+ *
+ * @author CroaBeast
+ * @since 1.4
+ */
+public final class WebhookOutbox {
+
+    private static final int MAGIC = 0x424C574F, HEADER = 12;
+
+    /**
+     * The maximum size of a stored body, so every payload Discord accepts can be stored.
+     */
+    private static final long MAX_RECORD = MultipartPayload.DEFAULT_MAX_SIZE;
+
+    private static final int SYNC_RECORDS = 32;
+    private static final long SYNC_INTERVAL = 1000;
+
+    private static final long MIN_BACKOFF = 1000, MAX_BACKOFF = TimeUnit.MINUTES.toMillis(5);
+    private static final int MAX_ATTEMPTS = 20;
+
+    private static volatile WebhookOutbox defaultOutbox;
+
+    /**
+     * The segment file of this outbox.
+     */
+    @Getter
+    private final File file;
+
+    private final FileChannel channel;
+    private final WebhookTransport transport;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    private long head, end;
+    private int pending = 0, unsynced = 0;
+
+    private long lastSync = System.currentTimeMillis(), retryAt = 0, backoff = MIN_BACKOFF;
+    private int attempts = 0;
+    private volatile boolean closed = false;
+
+    private final Thread worker;
+
+    /**
+     * Opens an outbox file, creating it if it doesn't exist, and starts sending its
+     * stored requests.
+     *
+     * @param file the segment file
+     * @param transport the transport that sends the requests
+     *
+     * @throws IOException if the file can not be opened
+     */
+    public WebhookOutbox(@NotNull File file, @NotNull WebhookTransport transport) throws IOException {
+        this.file = Objects.requireNonNull(file);
+        this.transport = Objects.requireNonNull(transport);
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs())
+            throw new IOException("Can not create the folder of " + file);
+
+        channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        recover();
+
+        worker = new Thread(this::run, "WebhookOutbox-" + file.getName());
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void recover() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+
+        if (channel.size() < HEADER || readFully(header, 0) < HEADER || header.getInt(0) != MAGIC) {
+            channel.truncate(0);
+            head = end = HEADER;
+            writeHead();
+            channel.force(true);
+            return;
+        }
+
+        head = Math.max(HEADER, header.getLong(4));
+
+        long position = head, size = channel.size();
+        ByteBuffer prefix = ByteBuffer.allocate(8);
+
+        while (position + 8 <= size) {
+            prefix.clear();
+            if (readFully(prefix, position) < 8) break;
+
+            int length = prefix.getInt(0);
+            if (length <= 0 || position + 8 + length > size) break;
+
+            ByteBuffer body = ByteBuffer.allocate(length);
+            if (readFully(body, position + 8) < length) break;
+
+            if (crc(body.array()) != prefix.getInt(4)) break;
+
+            position += 8 + length;
+            pending++;
+        }
+
+        end = position;
+        if (size > end) channel.truncate(end);
+
+        if (pending == 0) compact();
+    }
+
+    private int readFully(ByteBuffer buffer, long position) throws IOException {
+        int read = 0;
+
+        while (buffer.hasRemaining()) {
+            int count = channel.read(buffer, position + read);
+            if (count < 0) break;
+            read += count;
+        }
+
+        buffer.flip();
+        return read;
+    }
+
+    private static int crc(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return (int) crc.getValue();
+    }
+
+    private void writeHead() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER);
+        buffer.putInt(MAGIC).putLong(head).flip();
+
+        while (buffer.hasRemaining())
+            channel.write(buffer, buffer.position());
+    }
+
+    private void compact() throws IOException {
+        head = end = HEADER;
+
+        channel.truncate(HEADER);
+        writeHead();
+        channel.force(true);
+
+        unsynced = 0;
+    }
+
+    /**
+     * Stores a request in the outbox, so it's sent again later.
+     *
+     * @param method the HTTP method
+     * @param url the URL
+     * @param payload the body, can be null
+     *
+     * @return true if the request was stored, false if it's too big or can not be written
+     */
+    public boolean store(@NotNull String method, @NotNull String url, @Nullable WebhookPayload payload) {
+        byte[] record;
+
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+            if (payload != null) {
+                if (payload.getContentLength() > MAX_RECORD)
+                    return tooBig(method, url, payload.getContentLength());
+
+                payload.writeTo(body);
+            }
+
+            if (body.size() > MAX_RECORD) return tooBig(method, url, body.size());
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.size() + url.length() + 64);
+            DataOutputStream data = new DataOutputStream(bytes);
+
+            data.writeUTF(method);
+            data.writeUTF(url);
+            data.writeUTF(payload != null ? payload.getContentType() : "");
+            data.writeInt(body.size());
+            body.writeTo(data);
+
+            data.flush();
+            record = bytes.toByteArray();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(8 + record.length);
+        buffer.putInt(record.length).putInt(crc(record)).put(record).flip();
+
+        lock.lock();
+        try {
+            if (closed) return false;
+
+            long position = end;
+            while (buffer.hasRemaining())
+                position += channel.write(buffer, position);
+
+            end = position;
+            pending++;
+            unsynced++;
+
+            changed.signalAll();
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static boolean tooBig(String method, String url, long size) {
+        new IOException("Can not store webhook request to " + method + " " + url +
+                ": its size " + size + " exceeds the limit of " + MAX_RECORD).printStackTrace();
+        return false;
+    }
+
+    /**
+     * Returns the amount of stored requests that were not sent yet.
+     *
+     * @return the amount of pending requests
+     */
+    public int getPending() {
+        lock.lock();
+        try {
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void sync() throws IOException {
+        if (unsynced == 0) return;
+
+        channel.force(false);
+
+        unsynced = 0;
+        lastSync = System.currentTimeMillis();
+    }
+
+    private void run() {
+        while (true) {
+            long position;
+            Request request;
+
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed) return;
+
+                    long now = System.currentTimeMillis();
+
+                    if (unsynced >= SYNC_RECORDS || (unsynced > 0 && now - lastSync >= SYNC_INTERVAL))
+                        try {
+                            sync();
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                        }
+
+                    long wait = unsynced > 0 ? SYNC_INTERVAL - (now - lastSync) : Long.MAX_VALUE;
+
+                    if (pending > 0) {
+                        if (retryAt <= now) break;
+                        wait = Math.min(wait, retryAt - now);
+                    }
+
+                    try {
+                        if (wait == Long.MAX_VALUE) changed.await();
+                        else changed.await(Math.max(wait, 1), TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+
+                position = head;
+                try {
+                    request = read(position);
+                } catch (IOException e) {
+                    // the record can not be read, so the rest of the file is discarded
+                    e.printStackTrace();
+                    discardFrom(position);
+                    continue;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            WebhookResponse response = null;
+            Exception error = null;
+
+            try {
+                response = transport.execute(request.method, request.url, request.payload);
+            } catch (Exception e) {
+                error = e;
+            }
+
+            lock.lock();
+            try {
+                if (closed || head != position) continue;
+
+                long now = System.currentTimeMillis();
+
+                if (response != null && response.isRateLimited()) {
+                    retryAt = now + response.getRetryAfterMillis();
+                    continue;
+                }
+
+                boolean failed = response == null || response.getStatus() >= 500;
+
+                if (failed && !isPermanent(error) && ++attempts < MAX_ATTEMPTS) {
+                    retryAt = now + backoff;
+                    backoff = Math.min(backoff * 2, MAX_BACKOFF);
+                    continue;
+                }
+
+                if (response == null)
+                    new IOException("Discarded stored webhook request to " +
+                            request.method + " " + request.url, error).printStackTrace();
+
+                else if (!response.isSuccess())
+                    new IOException("Discarded stored webhook request: " + response).printStackTrace();
+
+                backoff = MIN_BACKOFF;
+                retryAt = 0;
+                attempts = 0;
+
+                head = request.next;
+                pending--;
+
+                try {
+                    if (pending == 0) compact();
+                    else writeHead();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Checks if an error of the transport will happen every time the request is sent,
+     * like an invalid URL or an unsupported method, so the request can't be retried.
+     */
+    private static boolean isPermanent(Throwable error) {
+        if (error == null) return false;
+
+        if (error instanceof IOException && error.getCause() != null &&
+                !(error instanceof ProtocolException))
+            error = error.getCause();
+
+        return error instanceof ProtocolException ||
+                error instanceof MalformedURLException ||
+                error instanceof IllegalArgumentException ||
+                error instanceof UnsupportedOperationException;
+    }
+
+    private void discardFrom(long position) {
+        try {
+            end = position;
+            pending = 0;
+            attempts = 0;
+            compact();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private Request read(long position) throws IOException {
+        ByteBuffer prefix = ByteBuffer.allocate(8);
+        if (readFully(prefix, position) < 8) throw new EOFException();
+
+        int length = prefix.getInt(0);
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+
+        if (readFully(buffer, position + 8) < length) throw new EOFException();
+
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(buffer.array()));
+
+        String method = data.readUTF(), url = data.readUTF(), type = data.readUTF();
+
+        byte[] body = new byte[data.readInt()];
+        data.readFully(body);
+
+        WebhookPayload payload = type.isEmpty() ? null : WebhookPayload.of(type, body);
+        return new Request(method, url, payload, position + 8 + length);
+    }
+
+    /**
+     * Syncs the stored requests to the disk, stops sending them and closes the file. The
+     * requests that were not sent are kept for the next time the file is opened.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+
+            changed.signalAll();
+
+            sync();
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static class Request {
+
+        private final String method, url;
+        private final WebhookPayload payload;
+        private final long next;
+
+        private Request(String method, String url, WebhookPayload payload, long next) {
+            this.method = method;
+            this.url = url;
+            this.payload = payload;
+            this.next = next;
+        }
+    }
+
+    /**
+     * Returns the outbox enabled using {@link #enable(Plugin)}, or null if not enabled.
+     *
+     * @return the enabled outbox, or null
+     */
+    @Nullable
+    public static WebhookOutbox getDefault() {
+        return defaultOutbox;
+    }
+
+    /**
+     * Opens the outbox of a plugin in its data folder, sends the requests stored in the
+     * last run and stores the requests that the shared {@link WebhookDispatcher} can not
+     * deliver. It's closed automatically when the plugin is disabled.
+     *
+     * @param plugin a plugin
+     * @return the outbox, or null if it can not be opened
+     */
+    @Nullable
+    public static WebhookOutbox enable(@NotNull Plugin plugin) {
+        WebhookOutbox outbox;
+
+        synchronized (WebhookOutbox.class) {
+            outbox = defaultOutbox;
+
+            if (outbox == null || outbox.closed) {
+                File file = new File(plugin.getDataFolder(), "webhooks" + File.separator + "outbox.dat");
+
+                try {
+                    defaultOutbox = outbox = new WebhookOutbox(file, WebhookTransport.DEFAULT);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    return null;
+                }
+
+                final WebhookOutbox closing = outbox;
+
+                // the dispatcher is closed first, so its unsent requests are stored
+                DisableHook.register(plugin, () -> {
+                    WebhookDispatcher.closeDefault(5, TimeUnit.SECONDS);
+                    closing.close();
+                });
+            }
+        }
+
+        WebhookDispatcher.getDefault().setOutbox(outbox);
+        return outbox;
+    }
+}
@@ -0,0 +1,83 @@
+package me.croabeast.beanslib.discord;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * The body of a webhook request, written directly to the output stream of the connection.
+ *
+ * @author CroaBeast
+ * @since 1.4
+ */
+public interface WebhookPayload {
+
+    /**
+     * Returns the content type of the body, like {@code application/json}.
+     *
+     * @return the content type
+     */
+    @NotNull
+    String getContentType();
+
+    /**
+     * Returns the length of the body in bytes, if it's known before writing it.
+     *
+     * @return the length, or -1 if unknown
+     */
+    default long getContentLength() {
+        return -1;
+    }
+
+    /**
+     * Writes the body to an output stream. It can be called more than once if the
+     * request is retried.
+     *
+     * @param stream the output stream of the connection
+     * @throws IOException if the body can not be written
+     */
+    void writeTo(@NotNull OutputStream stream) throws IOException;
+
+    /**
+     * Creates a payload from an array of bytes.
+     *
+     * @param contentType the content type of the bytes
+     * @param bytes the bytes of the body, they are not copied
+     *
+     * @return the payload
+     */
+    @NotNull
+    static WebhookPayload of(@NotNull String contentType, byte[] bytes) {
+        Objects.requireNonNull(contentType);
+        Objects.requireNonNull(bytes);
+
+        return new WebhookPayload() {
+            @NotNull
+            public String getContentType() {
+                return contentType;
+            }
+
+            public long getContentLength() {
+                return bytes.length;
+            }
+
+            public void writeTo(@NotNull OutputStream stream) throws IOException {
+                stream.write(bytes);
+            }
+        };
+    }
+
+    /**
+     * Creates a JSON payload from a JSON string.
+     *
+     * @param json a JSON string
+     * @return the payload
+     */
+    @NotNull
+    static WebhookPayload json(@NotNull String json) {
+        return of("application/json", json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,205 @@
+package me.croabeast.beanslib.discord;
+
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The response of a webhook request, with the rate limit information sent by Discord.
+ *
+ * @author CroaBeast
+ * @since 1.4
+ */
+@Getter
+public final class WebhookResponse {
+
+    private static final Pattern RETRY_AFTER = Pattern.compile("\"retry_after\"\\s*:\\s*([0-9.]+)");
+    private static final Pattern GLOBAL = Pattern.compile("\"global\"\\s*:\\s*true");
+
+    /**
+     * The HTTP status code.
+     */
+    private final int status;
+    /**
+     * The headers of the response, by lower case name.
+     */
+    private final Map<String, String> headers;
+    /**
+     * The body of the response, empty if there is no body.
+     */
+    private final String body;
+
+    /**
+     * Creates a new response.
+     *
+     * @param status the HTTP status code
+     * @param headers the headers, by lower case name
+     * @param body the body, can be null
+     */
+    public WebhookResponse(int status, @NotNull Map<String, String> headers, String body) {
+        this.status = status;
+        this.headers = Collections.unmodifiableMap(headers);
+        this.body = body == null ? "" : body;
+    }
+
+    /**
+     * Returns the value of a header.
+     *
+     * @param name the name of the header, in any case
+     * @return the value, or null if not present
+     */
+    @Nullable
+    public String getHeader(String name) {
+        return headers.get(name.toLowerCase(Locale.ENGLISH));
+    }
+
+    private double getNumber(String name, double def) {
+        String value = getHeader(name);
+        if (value == null) return def;
+
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+
+    /**
+     * Checks if the request was successful, with a 2xx status code.
+     *
+     * @return true if successful, false otherwise
+     */
+    public boolean isSuccess() {
+        return status >= 200 && status < 300;
+    }
+
+    /**
+     * Checks if the request was rejected by a rate limit, with a 429 status code.
+     *
+     * @return true if rate limited, false otherwise
+     */
+    public boolean isRateLimited() {
+        return status == 429;
+    }
+
+    /**
+     * Checks if the rate limit that rejected the request is the global one.
+     *
+     * @return true if it's a global rate limit, false otherwise
+     */
+    public boolean isGlobal() {
+        return "true".equalsIgnoreCase(getHeader("X-RateLimit-Global")) ||
+                (isRateLimited() && GLOBAL.matcher(body).find());
+    }
+
+    /**
+     * Returns the time in milliseconds to wait before retrying a rate limited request,
+     * from the {@code retry_after} value of the body or the {@code Retry-After} header.
+     *
+     * @return the time to wait, or 0 if not rate limited
+     */
+    public long getRetryAfterMillis() {
+        if (!isRateLimited()) return 0;
+
+        Matcher matcher = RETRY_AFTER.matcher(body);
+        if (matcher.find())
+            try {
+                return (long) Math.ceil(Double.parseDouble(matcher.group(1)) * 1000);
+            } catch (NumberFormatException ignored) {}
+
+        return (long) Math.ceil(getNumber("Retry-After", 1) * 1000);
+    }
+
+    /**
+     * Returns the amount of requests that can be sent before the rate limit bucket resets.
+     *
+     * @return the remaining requests, or -1 if unknown
+     */
+    public int getRemaining() {
+        return (int) getNumber("X-RateLimit-Remaining", -1);
+    }
+
+    /**
+     * Returns the time in milliseconds until the rate limit bucket resets.
+     *
+     * @return the time until the reset, or 0 if unknown
+     */
+    public long getResetAfterMillis() {
+        return (long) Math.ceil(getNumber("X-RateLimit-Reset-After", 0) * 1000);
+    }
+
+    /**
+     * Returns the id of the rate limit bucket of the request.
+     *
+     * @return the bucket id, or null if unknown
+     */
+    @Nullable
+    public String getBucket() {
+        return getHeader("X-RateLimit-Bucket");
+    }
+
+    /**
+     * Returns the id of the message created or edited by the request, from the body sent
+     * by Discord when the request uses {@code ?wait=true}.
+     *
+     * @return the message id, or null if the body has no message
+     */
+    @Nullable
+    public String getMessageId() {
+        int depth = 0;
+        final int length = body.length();
+
+        for (int i = 0; i < length; i++) {
+            char c = body.charAt(i);
+
+            if (c == '{' || c == '[') {
+                depth++;
+                continue;
+            }
+            if (c == '}' || c == ']') {
+                depth--;
+                continue;
+            }
+            if (c != '"') continue;
+
+            int end = skipString(body, i);
+            if (end < 0) return null;
+
+            if (depth == 1 && body.startsWith("\"id\"", i)) {
+                int value = end + 1;
+                while (value < length && (body.charAt(value) == ':' || Character.isWhitespace(body.charAt(value))))
+                    value++;
+
+                if (value >= length || body.charAt(value) != '"') return null;
+
+                int close = skipString(body, value);
+                return close < 0 ? null : body.substring(value + 1, close);
+            }
+
+            i = end;
+        }
+
+        return null;
+    }
+
+    private static int skipString(String s, int start) {
+        for (int i = start + 1; i < s.length(); i++) {
+            char c = s.charAt(i);
+
+            if (c == '\\') i++;
+            else if (c == '"') return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return "WebhookResponse{status=" + status + ", body='" + body + "'}";
+    }
+}
@@ -0,0 +1,529 @@
+package me.croabeast.beanslib.discord;
+
+import lombok.Getter;
+import me.croabeast.beanslib.map.LruCache;
+import org.apache.commons.lang.StringUtils;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An immutable webhook definition, compiled once from a {@link ConfigurationSection}.
+ *
+ * <p> Every text of the section is split by the message token when it's compiled, so
+ * rendering a template only joins the split parts with the message, without reading the
+ * section or parsing the colors of the embeds again.
+ *
+ * <pre> {@code
+ * WebhookTemplate template = WebhookTemplate.of(section, "{message}");
+ * RawWebhook webhook = template.render("Hello world");
+ * } </pre>
+ *
+ * <p> The JSON of the template is also encoded when it's compiled, split in static byte
+ * segments around the message, so {@link #toPayload(String)} only encodes the message.
+ *
+ * <p> Templates are cached by the path of their section and the token. A cached template
+ * is compiled again if the section is a different object, like after reloading the file of
+ * the section, and {@link #invalidate()} clears all the cached templates.
+ *
+ * @author CroaBeast
+ * @since 1.4
+ */
+public final class WebhookTemplate {
+
+    private static final LruCache<String, WebhookTemplate> CACHE = new LruCache<>(128);
+
+    private final WeakReference<ConfigurationSection> section;
+
+    /**
+     * The token replaced by the message.
+     */
+    @Getter
+    private final String token;
+
+    /**
+     * If the webhook is enabled in its section.
+     */
+    @Getter
+    private final boolean enabled;
+
+    /**
+     * The URL of the webhook, or null if the section has no URL.
+     */
+    @Getter
+    private final String url;
+
+    private final boolean tts;
+    private final Text content, username, avatarUrl;
+
+    private final List<Embed> embeds;
+
+    private final byte[][] segments;
+    private final int staticLength, slotCount;
+
+    private int tokens = 0;
+
+    private WebhookTemplate(ConfigurationSection section, String token) {
+        this.section = new WeakReference<>(section);
+        this.token = token;
+
+        enabled = section.getBoolean("enabled");
+        url = section.getString("url");
+
+        tts = section.getBoolean("tts");
+        content = text(section.getString("content"));
+        username = text(section.getString("username"));
+        avatarUrl = text(section.getString("avatar-url"));
+
+        List<Embed> embeds = new ArrayList<>();
+
+        ConfigurationSection s = section.getConfigurationSection("embeds");
+        if (s != null)
+            for (String key : s.getKeys(false)) {
+                ConfigurationSection em = s.getConfigurationSection(key);
+                if (em != null) embeds.add(new Embed(em));
+            }
+
+        this.embeds = Collections.unmodifiableList(embeds);
+
+        if (content.source == null) {
+            segments = null;
+            staticLength = slotCount = 0;
+            return;
+        }
+
+        Encoder encoder = new Encoder();
+        try {
+            encoder.encode();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        segments = encoder.segments.toArray(new byte[0][]);
+
+        int length = 0, slots = 0;
+        for (byte[] segment : segments) {
+            if (segment == null) slots++;
+            else length += segment.length;
+        }
+
+        staticLength = length;
+        slotCount = slots;
+    }
+
+    private Text text(String string) {
+        Text text = new Text(string, token);
+        if (text.parts != null) tokens++;
+
+        return text;
+    }
+
+    /**
+     * Checks if any text of this template has the message token.
+     *
+     * @return true if the message is used, false otherwise
+     */
+    public boolean usesMessage() {
+        return tokens > 0;
+    }
+
+    /**
+     * Returns the length of the content rendered with a message of a defined length,
+     * without rendering it.
+     *
+     * @param messageLength the length of the message
+     * @return the length of the content, or 0 if there is no content
+     */
+    public int getContentLength(int messageLength) {
+        return content.length(messageLength);
+    }
+
+    /**
+     * Returns the amount of embeds of this template.
+     *
+     * @return the amount of embeds
+     */
+    public int getEmbedCount() {
+        return embeds.size();
+    }
+
+    /**
+     * Creates a new webhook from this template, replacing the token with a message.
+     *
+     * @param message a message, if null the token is not replaced
+     * @return the webhook, or null if this template has no URL
+     */
+    @Nullable
+    public RawWebhook render(String message) {
+        if (StringUtils.isBlank(url)) return null;
+
+        RawWebhook hook = new RawWebhook(url, null, null)
+                .setContent(content.render(message))
+                .setUsername(username.render(message))
+                .setAvatarUrl(avatarUrl.render(message))
+                .setTts(tts);
+
+        for (Embed embed : embeds) hook.addEmbed(embed.render(message));
+        return hook.fromTemplate(this, message);
+    }
+
+    /**
+     * Creates a new webhook from this template that merges many messages. The texts of
+     * the webhook are rendered with the messages joined by a line break, and the embeds
+     * are rendered once for every message.
+     *
+     * @param messages the messages
+     * @return the webhook, or null if this template has no URL
+     */
+    @Nullable
+    public RawWebhook render(@NotNull List<String> messages) {
+        if (messages.size() == 1) return render(messages.get(0));
+        if (StringUtils.isBlank(url)) return null;
+
+        String joined = String.join("\n", messages);
+
+        RawWebhook hook = new RawWebhook(url, null, null)
+                .setContent(content.render(joined))
+                .setUsername(username.render(joined))
+                .setAvatarUrl(avatarUrl.render(joined))
+                .setTts(tts);
+
+        for (String message : messages)
+            for (Embed embed : embeds) hook.addEmbed(embed.render(message));
+
+        return hook;
+    }
+
+    /**
+     * Creates the JSON payload of this template, replacing the token with a message.
+     *
+     * <p> The static parts of the JSON are encoded when the template is compiled, so only
+     * the message is escaped and encoded, once for all its occurrences.
+     *
+     * @param message a message, if null the token is not replaced
+     * @return the payload
+     *
+     * @throws NullPointerException if this template has no content to display
+     */
+    @NotNull
+    public WebhookPayload toPayload(String message) {
+        if (segments == null)
+            throw new NullPointerException("Set a content in the embed");
+
+        String value = message != null ? message : token;
+        final byte[] encoded;
+
+        if (slotCount > 0 && value != null) {
+            ByteArrayOutputStream stream = new ByteArrayOutputStream(value.length() + 16);
+            try {
+                new JsonWriter(stream).chars(value).flush();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            encoded = stream.toByteArray();
+        }
+        else encoded = new byte[0];
+
+        final long length = staticLength + (long) slotCount * encoded.length;
+
+        return new WebhookPayload() {
+            @NotNull
+            public String getContentType() {
+                return "application/json";
+            }
+
+            public long getContentLength() {
+                return length;
+            }
+
+            public void writeTo(@NotNull OutputStream stream) throws IOException {
+                for (byte[] segment : segments)
+                    stream.write(segment != null ? segment : encoded);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "WebhookTemplate{url='" + url + "', token='" + token + "', embeds=" + embeds.size() + '}';
+    }
+
+    /**
+     * Returns the compiled template of a section, compiling it if it's not cached or if
+     * the cached template was compiled from another section with the same path.
+     *
+     * @param section a configuration section
+     * @param token the token to replace with the message
+     *
+     * @return the compiled template
+     */
+    @NotNull
+    public static WebhookTemplate of(@NotNull ConfigurationSection section, String token) {
+        Objects.requireNonNull(section);
+
+        String key = section.getCurrentPath() + '\u0000' + token;
+        WebhookTemplate template = CACHE.get(key);
+
+        if (template == null || template.section.get() != section) {
+            template = new WebhookTemplate(section, token);
+            CACHE.put(key, template);
+        }
+
+        return template;
+    }
+
+    /**
+     * Returns the compiled template of a section, using the {@code {message}} token.
+     *
+     * @param section a configuration section
+     * @return the compiled template
+     */
+    @NotNull
+    public static WebhookTemplate of(@NotNull ConfigurationSection section) {
+        return of(section, "{message}");
+    }
+
+    /**
+     * Clears all the cached templates, so they are compiled again the next time.
+     */
+    public static void invalidate() {
+        CACHE.clear();
+    }
+
+    /**
+     * Encodes the JSON of a template in static byte segments, split by the message slots.
+     */
+    private class Encoder {
+
+        private final List<byte[]> segments = new ArrayList<>();
+
+        private final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        private final JsonWriter writer = new JsonWriter(stream);
+
+        private void slot() throws IOException {
+            writer.flush();
+
+            segments.add(stream.toByteArray());
+            segments.add(null);
+
+            stream.reset();
+        }
+
+        private void text(String name, Text text) throws IOException {
+            if (text.source == null) return;
+
+            writer.name(name).openString();
+
+            if (text.parts == null) writer.chars(text.source);
+            else
+                for (int i = 0; i < text.parts.length; i++) {
+                    if (i > 0) slot();
+                    writer.chars(text.parts[i]);
+                }
+
+            writer.closeString();
+        }
+
+        private void object(String name, String[] names, Text... texts) throws IOException {
+            boolean empty = true;
+            for (Text text : texts)
+                if (text.source != null) empty = false;
+
+            if (empty) return;
+
+            writer.name(name).beginObject();
+            for (int i = 0; i < texts.length; i++) text(names[i], texts[i]);
+
+            writer.endObject();
+        }
+
+        private void encode() throws IOException {
+            writer.beginObject();
+
+            text("content", content);
+            text("username", username);
+            text("avatar_url", avatarUrl);
+
+            writer.name("tts").value(tts);
+
+            if (!embeds.isEmpty()) {
+                writer.name("embeds").beginArray();
+                for (Embed embed : embeds) embed(embed);
+
+                writer.endArray();
+            }
+
+            writer.endObject().flush();
+            segments.add(stream.toByteArray());
+        }
+
+        private void embed(Embed embed) throws IOException {
+            writer.beginObject();
+
+            text("title", embed.title);
+            text("description", embed.description);
+            text("url", embed.url);
+
+            if (embed.color >= 0) writer.name("color").value(embed.color);
+
+            object("footer", new String[] {"text", "icon_url"}, embed.footerText, embed.footerIcon);
+            object("image", new String[] {"url"}, embed.image);
+            object("thumbnail", new String[] {"url"}, embed.thumbnail);
+
+            object("author", new String[] {"name", "url", "icon_url"},
+                    embed.authorName, embed.authorUrl, embed.authorIcon);
+
+            if (!embed.fields.isEmpty()) {
+                writer.name("fields").beginArray();
+
+                for (int i = 0; i < embed.fields.size(); i++) {
+                    Text[] field = embed.fields.get(i);
+                    writer.beginObject();
+
+                    text("name", field[0]);
+                    text("value", field[1]);
+
+                    writer.name("inline").value(embed.inline.get(i)).endObject();
+                }
+
+                writer.endArray();
+            }
+
+            writer.endObject();
+        }
+    }
+
+    /**
+     * A text split by the token of its template.
+     */
+    private static class Text {
+
+        private final String source;
+        private final String[] parts;
+        private final int literalLength;
+
+        private Text(String source, String token) {
+            this.source = source;
+
+            if (StringUtils.isBlank(source) || StringUtils.isEmpty(token)) {
+                parts = null;
+                literalLength = 0;
+                return;
+            }
+
+            List<String> parts = new ArrayList<>();
+            int last = 0, length = 0;
+
+            for (int i = source.indexOf(token); i >= 0; i = source.indexOf(token, last)) {
+                parts.add(source.substring(last, i));
+                length += i - last;
+                last = i + token.length();
+            }
+
+            if (parts.isEmpty()) {
+                this.parts = null;
+                literalLength = 0;
+                return;
+            }
+
+            parts.add(source.substring(last));
+
+            this.parts = parts.toArray(new String[0]);
+            literalLength = length + source.length() - last;
+        }
+
+        private int length(int messageLength) {
+            if (source == null) return 0;
+            return parts == null ? source.length() : literalLength + (parts.length - 1) * messageLength;
+        }
+
+        private String render(String message) {
+            if (parts == null || message == null) return source;
+
+            StringBuilder builder = new StringBuilder(literalLength + (parts.length - 1) * message.length());
+            builder.append(parts[0]);
+
+            for (int i = 1; i < parts.length; i++)
+                builder.append(message).append(parts[i]);
+
+            return builder.toString();
+        }
+    }
+
+    /**
+     * A compiled embed of a template.
+     */
+    private class Embed {
+
+        private final Text title, description, url, footerText, footerIcon, thumbnail, image;
+        private final Text authorName, authorUrl, authorIcon;
+
+        private final int color;
+        private final List<Text[]> fields = new ArrayList<>();
+        private final List<Boolean> inline = new ArrayList<>();
+
+        private Embed(ConfigurationSection em) {
+            title = text(em.getString("title"));
+            description = text(em.getString("description"));
+            url = text(em.getString("url"));
+
+            footerText = text(em.getString("footer.text"));
+            footerIcon = text(em.getString("footer.icon-url"));
+
+            thumbnail = text(em.getString("thumbnail-url"));
+            image = text(em.getString("image-url"));
+
+            authorName = text(em.getString("author.name"));
+            authorUrl = text(em.getString("author.url"));
+            authorIcon = text(em.getString("author.icon-url"));
+
+            color = EmbedObject.parseColor(em.getString("color"));
+
+            ConfigurationSection s = em.getConfigurationSection("fields");
+            if (s == null) return;
+
+            for (String key : s.getKeys(false)) {
+                ConfigurationSection field = s.getConfigurationSection(key);
+                if (field == null) continue;
+
+                fields.add(new Text[] {
+                        text(field.getString("name")),
+                        text(field.getString("value"))
+                });
+                inline.add(field.getBoolean("inline"));
+            }
+        }
+
+        private EmbedObject render(String message) {
+            EmbedObject embed = new EmbedObject(null, null)
+                    .setTitle(title.render(message))
+                    .setDescription(description.render(message))
+                    .setUrl(url.render(message))
+                    .setFooter(footerText.render(message), footerIcon.render(message))
+                    .setThumbnail(thumbnail.render(message))
+                    .setImage(image.render(message))
+                    .setAuthor(
+                            authorName.render(message),
+                            authorUrl.render(message),
+                            authorIcon.render(message)
+                    )
+                    .setColor(color);
+
+            for (int i = 0; i < fields.size(); i++) {
+                Text[] field = fields.get(i);
+                embed.addField(field[0].render(message), field[1].render(message), inline.get(i));
+            }
+
+            return embed;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package me.croabeast.beanslib.discord;
+
+import lombok.experimental.UtilityClass;
+import me.croabeast.beanslib.Beans;
+import me.croabeast.beanslib.misc.DisableHook;
+import org.bukkit.plugin.Plugin;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+/**
+ * The shared timer thread of the delayed webhook tasks, like the batches of
+ * {@link WebhookBatcher} and the edits of {@link LiveWebhookMessage}.
+ *
+ * @author CroaBeast
+ * @since 1.4
+ */
+@UtilityClass
+class WebhookTimer {
+
+    private ScheduledExecutorService timer;
+
+    /**
+     * Returns the shared timer, creating it if needed. It's stopped automatically
+     * when the plugin of the lib is disabled.
+     *
+     * @return the shared timer
+     */
+    synchronized ScheduledExecutorService get() {
+        if (timer != null) return timer;
+
+        Plugin plugin = null;
+        try {
+            plugin = Beans.getPlugin();
+        } catch (Exception ignored) {}
+
+        String name = (plugin != null ? plugin.getName() : "BeansLib") + "-WebhookTimer";
+
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+
+        DisableHook.register(plugin, WebhookTimer::shutdown);
+        return timer = executor;
+    }
+
+    /**
+     * Stops the shared timer, cancelling its pending tasks.
+     */
+    synchronized void shutdown() {
+        if (timer == null) return;
+
+        timer.shutdownNow();
+        timer = null;
+    }
+}
@@ -0,0 +1,130 @@
+package me.croabeast.beanslib.discord;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Sends the HTTP requests of the webhooks.
+ *
+ * <p> The {@link #DEFAULT} transport uses the {@code java.net.http.HttpClient} of Java 11
+ * or higher when it's available, and the {@link #URL_CONNECTION} transport otherwise. Both
+ * keep the connections alive, and accept {@code https} and {@code http} URLs, so they can
+ * also be used against local servers.
+ *
+ * @author CroaBeast
+ * @since 1.4
+ */
+@FunctionalInterface
+public interface WebhookTransport {
+
+    /**
+     * A transport using {@link HttpURLConnection}. It always reads and closes the response
+     * streams without disconnecting, so the connections are reused by the keep-alive cache
+     * of the JVM. It doesn't support the {@code PATCH} method.
+     */
+    WebhookTransport URL_CONNECTION = new WebhookTransport() {
+
+        private static final int TIMEOUT = 10_000;
+
+        @Override
+        public boolean supports(@NotNull String method) {
+            switch (method) {
+                case "GET": case "POST": case "HEAD": case "OPTIONS":
+                case "PUT": case "DELETE": case "TRACE":
+                    return true;
+
+                default: return false;
+            }
+        }
+
+        private String read(InputStream stream) throws IOException {
+            if (stream == null) return "";
+
+            try (InputStream input = stream) {
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+
+                int read;
+                while ((read = input.read(buffer)) != -1) output.write(buffer, 0, read);
+
+                return new String(output.toByteArray(), StandardCharsets.UTF_8);
+            }
+        }
+
+        @NotNull
+        public WebhookResponse execute(@NotNull String method, @NotNull String url, @Nullable WebhookPayload payload) throws IOException {
+            HttpURLConnection c = (HttpURLConnection) new URL(url).openConnection();
+
+            c.setConnectTimeout(TIMEOUT);
+            c.setReadTimeout(TIMEOUT);
+            c.setRequestProperty("User-Agent", "BeansLib-Webhook");
+
+            c.setRequestMethod(method);
+
+            if (payload != null) {
+                c.setDoOutput(true);
+                c.setRequestProperty("Content-Type", payload.getContentType());
+
+                long length = payload.getContentLength();
+                if (length >= 0) c.setFixedLengthStreamingMode(length);
+                else c.setChunkedStreamingMode(8192);
+
+                try (OutputStream stream = c.getOutputStream()) {
+                    payload.writeTo(stream);
+                }
+            }
+
+            int status = c.getResponseCode();
+
+            Map<String, String> headers = new HashMap<>();
+            for (Map.Entry<String, List<String>> e : c.getHeaderFields().entrySet()) {
+                if (e.getKey() == null || e.getValue().isEmpty()) continue;
+                headers.put(e.getKey().toLowerCase(Locale.ENGLISH), e.getValue().get(0));
+            }
+
+            String body = read(status >= 400 ? c.getErrorStream() : c.getInputStream());
+            return new WebhookResponse(status, headers, body);
+        }
+    };
+
+    /**
+     * The default transport: the {@code HttpClient} of Java 11 or higher if available,
+     * or {@link #URL_CONNECTION} otherwise.
+     */
+    WebhookTransport DEFAULT = HttpClientTransport.createOr(URL_CONNECTION);
+
+    /**
+     * Sends a request and reads its whole response.
+     *
+     * @param method the HTTP method, like {@code POST}
+     * @param url the URL
+     * @param payload the body of the request, can be null
+     *
+     * @return the response
+     * @throws IOException if the request can not be sent or the response can not be read
+     */
+    @NotNull
+    WebhookResponse execute(@NotNull String method, @NotNull String url, @Nullable WebhookPayload payload) throws IOException;
+
+    /**
+     * Checks if this transport can send requests with an HTTP method.
+     *
+     * @param method the HTTP method, like {@code PATCH}
+     * @return true if the method is supported, false otherwise
+     */
+    default boolean supports(@NotNull String method) {
+        return true;
+    }
+}
@@ -1,18 +1,26 @@
 package me.croabeast.beanslib.key;
 
 import lombok.SneakyThrows;
+import me.croabeast.beanslib.Beans;
 import me.croabeast.beanslib.applier.StringApplier;
 import me.croabeast.beanslib.misc.CollectionBuilder;
 import me.croabeast.beanslib.misc.Rounder;
 import me.croabeast.beanslib.utility.Exceptions;
 import org.apache.commons.lang.StringUtils;
+import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.HumanEntity;
 import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 
 /**
  * A class that represents a key-function pair for a player, the function will
@@ -23,17 +31,46 @@ import java.util.function.Function;
  *
  * <p> The class also maintains a map of default keys that can be restored at
  * any time.
+ *
+ * <p> Keys in the {@code {key}} form are found scanning the string once, and only
+ * the keys present in the string are evaluated. The values are memoized for every
+ * player during the current server tick, so many lines for the same player in a
+ * single tick reuse them.
  */
 public final class PlayerKey<T> {
 
     private static final Set<PlayerKey<?>> KEY_SET = new LinkedHashSet<>();
     private static final Set<PlayerKey<?>> DEFS = new LinkedHashSet<>();
 
+    /**
+     * The loaded keys in the {@code {key}} form, by their exact and lower case strings,
+     * and the rest of loaded keys. It's rebuilt lazily after the loaded keys change.
+     */
+    private static volatile Index index = null;
+
     private final String key;
     private final Function<Player, T> function;
 
-    private static <N extends Number> Function<Player, N> fromLoc(Function<Location, N> function) {
-        return p -> Rounder.round(function.apply(p.getLocation()));
+    private static final ThreadLocal<StringBuilder> LOC_BUILDER =
+            ThreadLocal.withInitial(() -> new StringBuilder(24));
+
+    /**
+     * Formats the coordinates like the rounded {@link Double} values used before,
+     * so whole coordinates keep rendering as {@code 100.0} and not as {@code 100}.
+     */
+    private static Function<Player, String> fromLoc(ToDoubleFunction<Location> function) {
+        return p -> {
+            double value = Rounder.roundTo(function.applyAsDouble(p.getLocation()));
+            if (!(Math.abs(value) < 1e7)) return String.valueOf(value);
+
+            StringBuilder builder = LOC_BUILDER.get();
+            builder.setLength(0);
+
+            Rounder.format(builder, value, 2);
+            if (builder.indexOf(".") < 0) builder.append(".0");
+
+            return builder.toString();
+        };
     }
 
     static {
@@ -81,9 +118,16 @@ public final class PlayerKey<T> {
         return "PlayerKey{key='" + key + "', function=" + function + '}';
     }
 
+    private static void changed() {
+        index = null;
+        Memo.clear();
+    }
+
     private static <T> boolean loadKey0(String key, Function<Player, T> function, boolean isDef) {
         PlayerKey<?> first = new PlayerKey<>(key, function);
         if (isDef) DEFS.add(new PlayerKey<>(first));
+
+        changed();
         return KEY_SET.add(first);
     }
 
@@ -99,6 +143,7 @@ public final class PlayerKey<T> {
                 continue;
 
             KEY_SET.remove(result = k);
+            changed();
             break;
         }
 
@@ -145,10 +190,72 @@ public final class PlayerKey<T> {
         return CollectionBuilder.of(KEY_SET).map(f).collect(new LinkedList<>());
     }
 
+    private static Index index() {
+        Index i = index;
+        return i != null ? i : (index = new Index());
+    }
+
+    private static boolean isBraced(String key) {
+        int last = key.length() - 1;
+        return last > 0 && key.charAt(0) == '{' && key.charAt(last) == '}' &&
+                key.indexOf('{', 1) < 0 && key.indexOf('}') == last;
+    }
+
+    /**
+     * Returns the value of a loaded key in the {@code {key}} form for a player.
+     *
+     * @param player a player
+     * @param token the key, including the braces
+     * @param sensitive if the key is case-sensitive
+     *
+     * @return the value, or null if the key is not loaded or its value is null
+     */
+    static String valueOf(Player player, String token, boolean sensitive) {
+        PlayerKey<?> key = find(token, sensitive);
+        return key == null || player == null ? null : Memo.valueOf(player, key);
+    }
+
+    /**
+     * Returns the loaded key in the {@code {key}} form that matches a token.
+     *
+     * @param token the key, including the braces
+     * @param sensitive if the key is case-sensitive
+     *
+     * @return the key, or null if it's not loaded
+     */
+    static PlayerKey<?> find(String token, boolean sensitive) {
+        Index index = index();
+        return sensitive ?
+                index.exact.get(token) :
+                index.lower.get(token.toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Evaluates all the loaded keys for a player.
+     *
+     * @param player a player
+     * @return the string values of the keys, by key
+     */
+    static Map<String, String> evaluate(Player player) {
+        Map<String, String> values = new HashMap<>();
+
+        for (PlayerKey<?> k : KEY_SET)
+            values.putIfAbsent(k.key, Memo.valueOf(player, k));
+
+        return values;
+    }
+
     /**
      * Replaces all the occurrences of the keys in a given string with their
      * corresponding value functions for a given player.
      *
+     * <p> Outside the main thread, the values of the last captured {@link PlayerSnapshot}
+     * of the player are used first. The keys without a captured value are resolved from
+     * the player as usual, unless {@link PlayerSnapshot#isSnapshotOnly()} is enabled.
+     *
+     * <p> Only the keys present in the string are evaluated, and a replaced
+     * value is never scanned again for other keys.
+     *
      * @param player The player to apply the function to
      * @param string The string to replace the keys in
      * @param sensitive A boolean flag that indicates whether the replacement
@@ -160,14 +267,59 @@ public final class PlayerKey<T> {
         if (player == null || StringUtils.isBlank(string))
             return string;
 
+        Index index = index();
+        if (!index.others.isEmpty())
+            string = replaceOthers(player, index.others, string, sensitive);
+
+        int start = string.indexOf('{');
+        if (start < 0) return string;
+
+        Map<String, PlayerKey<?>> keys = sensitive ? index.exact : index.lower;
+        StringBuilder builder = null;
+
+        int last = 0, length = string.length();
+
+        while (start >= 0) {
+            int end = start + 1;
+            char c = 0;
+
+            while (end < length && (c = string.charAt(end)) != '}' && c != '{') end++;
+            if (end >= length) break;
+
+            if (c == '{') {
+                start = end;
+                continue;
+            }
+
+            String token = string.substring(start, end + 1);
+            PlayerKey<?> key = keys.get(sensitive ? token : token.toLowerCase(Locale.ENGLISH));
+
+            String value = key == null ? null : Memo.valueOf(player, key);
+            if (value != null) {
+                if (builder == null) builder = new StringBuilder(length + 16);
+
+                builder.append(string, last, start).append(value);
+                last = end + 1;
+            }
+
+            start = string.indexOf('{', end + 1);
+        }
+
+        if (builder == null) return string;
+        return builder.append(string, last, length).toString();
+    }
+
+    private static String replaceOthers(Player player, List<PlayerKey<?>> others, String string, boolean sensitive) {
         StringApplier applier = StringApplier.simplified(string);
 
-        for (PlayerKey<?> k : KEY_SET)
-            applier.apply(s -> ValueReplacer.of(
-                    k.key,
-                    k.apply(player),
-                    s, sensitive
-            ));
+        for (PlayerKey<?> k : others)
+            applier.apply(s -> {
+                boolean present = sensitive ?
+                        s.contains(k.key) :
+                        StringUtils.containsIgnoreCase(s, k.key);
+
+                return present ? ValueReplacer.of(k.key, Memo.valueOf(player, k), s, sensitive) : s;
+            });
 
         return applier.toString();
     }
@@ -192,5 +344,118 @@ public final class PlayerKey<T> {
     public static void setDefaults() {
         KEY_SET.clear();
         KEY_SET.addAll(DEFS);
+        changed();
+    }
+
+    private static class Index {
+
+        private final Map<String, PlayerKey<?>> exact = new HashMap<>();
+        private final Map<String, PlayerKey<?>> lower = new HashMap<>();
+        private final List<PlayerKey<?>> others = new ArrayList<>();
+
+        private Index() {
+            for (PlayerKey<?> k : KEY_SET) {
+                if (!isBraced(k.key)) {
+                    others.add(k);
+                    continue;
+                }
+
+                exact.putIfAbsent(k.key, k);
+                lower.putIfAbsent(k.key.toLowerCase(Locale.ENGLISH), k);
+            }
+        }
+    }
+
+    /**
+     * Stores the string values of the keys for every player during a single tick.
+     *
+     * <p> The tick is the current tick of the server if the platform exposes it,
+     * like {@code Bukkit.getCurrentTick()} in Paper, or a 50 ms time window otherwise.
+     * All the values are cleared once the tick changes.
+     */
+    private static class Memo {
+
+        private static final Object NULL = new Object();
+        private static final MethodHandle CURRENT_TICK;
+
+        static {
+            MethodHandle handle = null;
+            try {
+                handle = MethodHandles.publicLookup().findStatic(
+                        Bukkit.class, "getCurrentTick", MethodType.methodType(int.class));
+            } catch (Exception ignored) {}
+
+            CURRENT_TICK = handle;
+        }
+
+        private static final Map<UUID, Map<String, Object>> VALUES = new ConcurrentHashMap<>();
+        private static volatile long tick = Long.MIN_VALUE;
+
+        // only used on the main thread, if the server doesn't have Bukkit#getCurrentTick
+        private static BukkitTask counter = null;
+        private static long ticks = 0, attempt = Long.MIN_VALUE;
+
+        private static long currentTick() {
+            if (CURRENT_TICK != null)
+                try {
+                    return (int) CURRENT_TICK.invokeExact();
+                } catch (Throwable ignored) {}
+
+            if (counter != null && !counter.isCancelled()) return ticks;
+
+            long window = System.nanoTime() / 50_000_000L;
+            if (window == attempt) return window;
+
+            attempt = window;
+            try {
+                counter = Bukkit.getScheduler()
+                        .runTaskTimer(Beans.getPlugin(), () -> ticks++, 1, 1);
+                return ++ticks;
+            } catch (Exception e) {
+                counter = null;
+                return window;
+            }
+        }
+
+        private static void clear() {
+            VALUES.clear();
+            tick = Long.MIN_VALUE;
+        }
+
+        private static String valueOf(Player player, PlayerKey<?> key) {
+            // the values of other threads are not memoized, the memo follows the main thread ticks
+            if (!Bukkit.isPrimaryThread()) {
+                PlayerSnapshot snapshot = PlayerSnapshot.get(player);
+
+                String value = snapshot == null ? null : snapshot.getKeys().get(key.key);
+                if (value != null || PlayerSnapshot.isSnapshotOnly()) return value;
+
+                Object result = key.apply(player);
+                return result == null ? null : ValueReplacer.asString(result);
+            }
+
+            long current = currentTick();
+
+            if (current != tick)
+                synchronized (VALUES) {
+                    if (current != tick) {
+                        VALUES.clear();
+                        tick = current;
+                    }
+                }
+
+            Map<String, Object> values = VALUES.computeIfAbsent(
+                    player.getUniqueId(), u -> new ConcurrentHashMap<>());
+
+            Object value = values.get(key.key);
+            if (value == null) {
+                Object result = key.apply(player);
+
+                value = result == null ? NULL : ValueReplacer.asString(result);
+                values.put(key.key, value);
+            }
+
+            return value == NULL ? null : (String) value;
+        }
     }
 }
@@ -0,0 +1,352 @@
+package me.croabeast.beanslib.key;
+
+import lombok.Getter;
+import me.clip.placeholderapi.PlaceholderAPI;
+import me.croabeast.beanslib.utility.Exceptions;
+import org.apache.commons.lang.StringUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An immutable copy of the state of a player, captured on the main thread, so messages
+ * can be rendered on worker threads without touching live Bukkit objects.
+ *
+ * <p> A snapshot stores the basic data of the player, the values of all the loaded
+ * {@link PlayerKey} keys, and the values of the {@code %placeholders%} found in the
+ * texts that will be rendered. When {@link PlayerKey} and the PlaceholderAPI parser run
+ * outside the main thread, they use the values of the last captured snapshot of a player,
+ * and resolve the values that were not captured from the live player, like they always did.
+ * If {@link #setSnapshotOnly(boolean)} is enabled, those values are kept unresolved instead,
+ * so worker threads never touch the live player.
+ *
+ * <p> Snapshots expire after {@link #getMaxAge()} milliseconds, so a worker thread never
+ * renders the state of a player from a long time ago.
+ *
+ * <pre> {@code
+ * // on the main thread
+ * PlayerSnapshot.capture(player, messages);
+ *
+ * // on a worker thread
+ * String line = Beans.colorize(player, messages.get(0));
+ * } </pre>
+ *
+ * @author CroaBeast
+ * @since 1.4
+ */
+@Getter
+public final class PlayerSnapshot {
+
+    private static final Map<UUID, PlayerSnapshot> SNAPSHOTS = new ConcurrentHashMap<>();
+
+    private static volatile long maxAge = TimeUnit.SECONDS.toMillis(30);
+    private static volatile boolean snapshotOnly = false;
+
+    /**
+     * The unique id of the player.
+     */
+    private final UUID uniqueId;
+    /**
+     * The name of the player.
+     */
+    private final String name;
+    /**
+     * The display name of the player.
+     */
+    private final String displayName;
+    /**
+     * The name of the world of the player.
+     */
+    private final String worldName;
+    /**
+     * The game mode of the player.
+     */
+    private final GameMode gameMode;
+
+    private final double x, y, z;
+    private final float yaw, pitch;
+
+    /**
+     * The values of the loaded {@link PlayerKey} keys, by key.
+     */
+    private final Map<String, String> keys;
+    /**
+     * The values of the captured {@code %placeholders%}, by placeholder.
+     */
+    private final Map<String, String> placeholders;
+
+    /**
+     * The time in milliseconds when the snapshot was captured.
+     */
+    private final long capturedAt;
+
+    private PlayerSnapshot(Player player, Collection<String> texts) {
+        uniqueId = player.getUniqueId();
+        name = player.getName();
+        displayName = player.getDisplayName();
+        gameMode = player.getGameMode();
+
+        Location location = player.getLocation();
+
+        worldName = location.getWorld() == null ? null : location.getWorld().getName();
+        x = location.getX();
+        y = location.getY();
+        z = location.getZ();
+        yaw = location.getYaw();
+        pitch = location.getPitch();
+
+        keys = Collections.unmodifiableMap(PlayerKey.evaluate(player));
+        placeholders = Collections.unmodifiableMap(resolve(player, texts));
+
+        capturedAt = System.currentTimeMillis();
+    }
+
+    private static Map<String, String> resolve(Player player, Collection<String> texts) {
+        if (texts == null || texts.isEmpty() ||
+                !Exceptions.isPluginEnabled("PlaceholderAPI"))
+            return new HashMap<>();
+
+        Map<String, String> map = new HashMap<>();
+
+        for (String text : texts) {
+            if (StringUtils.isBlank(text)) continue;
+
+            int start = text.indexOf('%');
+
+            while (start >= 0) {
+                int end = findEnd(text, start);
+
+                if (end < 0) {
+                    start = text.indexOf('%', start + 1);
+                    continue;
+                }
+
+                if (end == start + 1) {
+                    start = end;
+                    continue;
+                }
+
+                String token = text.substring(start, end + 1);
+
+                if (!map.containsKey(token)) {
+                    String value = PlaceholderAPI.setPlaceholders(player, token);
+                    if (!token.equals(value)) map.put(token, value);
+                }
+
+                start = text.indexOf('%', end + 1);
+            }
+        }
+
+        return map;
+    }
+
+    /**
+     * Returns the index of the {@code %} character that closes a placeholder, or -1
+     * if there is no closing character. Placeholders can not contain spaces.
+     */
+    private static int findEnd(String text, int start) {
+        for (int i = start + 1; i < text.length(); i++) {
+            char c = text.charAt(i);
+
+            if (c == '%') return i;
+            if (Character.isWhitespace(c)) return -1;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Checks if this snapshot is older than the maximum age of the snapshots.
+     *
+     * @return true if the snapshot expired, false otherwise
+     */
+    public boolean isExpired() {
+        return System.currentTimeMillis() - capturedAt > maxAge;
+    }
+
+    /**
+     * Returns the location of the player, without its world.
+     *
+     * @return a new location instance
+     */
+    @NotNull
+    public Location getLocation() {
+        return new Location(null, x, y, z, yaw, pitch);
+    }
+
+    /**
+     * Replaces the captured {@code %placeholders%} of a string with their values.
+     * Placeholders that were not captured are kept as is.
+     *
+     * @param string an input string
+     * @return the string with the captured placeholders replaced
+     */
+    public String parsePlaceholders(String string) {
+        if (placeholders.isEmpty() || StringUtils.isBlank(string))
+            return string;
+
+        int start = string.indexOf('%');
+        if (start < 0) return string;
+
+        StringBuilder builder = null;
+        int last = 0;
+
+        while (start >= 0) {
+            int end = findEnd(string, start);
+
+            if (end < 0) {
+                start = string.indexOf('%', start + 1);
+                continue;
+            }
+
+            String value = placeholders.get(string.substring(start, end + 1));
+
+            if (value == null) {
+                start = end;
+                continue;
+            }
+
+            if (builder == null) builder = new StringBuilder(string.length() + 16);
+
+            builder.append(string, last, start).append(value);
+            last = end + 1;
+
+            start = string.indexOf('%', last);
+        }
+
+        return builder == null ? string : builder.append(string, last, string.length()).toString();
+    }
+
+    /**
+     * Captures a new snapshot of a player, replacing the previous one. It must be
+     * called on the main thread.
+     *
+     * @param player a player
+     * @param texts the texts that will be rendered, to capture their placeholders
+     *
+     * @return the captured snapshot
+     * @throws IllegalStateException if it's not called on the main thread
+     */
+    @NotNull
+    public static PlayerSnapshot capture(Player player, Collection<String> texts) {
+        Objects.requireNonNull(player);
+
+        if (!Bukkit.isPrimaryThread())
+            throw new IllegalStateException("Snapshots can only be captured on the main thread");
+
+        if (SNAPSHOTS.size() > Bukkit.getOnlinePlayers().size())
+            SNAPSHOTS.keySet().removeIf(u -> Bukkit.getPlayer(u) == null);
+
+        PlayerSnapshot snapshot = new PlayerSnapshot(player, texts);
+        SNAPSHOTS.put(snapshot.uniqueId, snapshot);
+
+        return snapshot;
+    }
+
+    /**
+     * Captures a new snapshot of a player, replacing the previous one. It must be
+     * called on the main thread.
+     *
+     * @param player a player
+     * @param texts the texts that will be rendered, to capture their placeholders
+     *
+     * @return the captured snapshot
+     * @throws IllegalStateException if it's not called on the main thread
+     */
+    @NotNull
+    public static PlayerSnapshot capture(Player player, String... texts) {
+        return capture(player, texts == null ? null : Arrays.asList(texts));
+    }
+
+    /**
+     * Returns the last captured snapshot of a player, if it's not expired.
+     *
+     * @param player a player, can be null
+     * @return the snapshot, or null if there is no snapshot or it expired
+     */
+    @Nullable
+    public static PlayerSnapshot get(Player player) {
+        if (player == null) return null;
+
+        PlayerSnapshot snapshot = SNAPSHOTS.get(player.getUniqueId());
+        if (snapshot == null || !snapshot.isExpired()) return snapshot;
+
+        SNAPSHOTS.remove(snapshot.uniqueId, snapshot);
+        return null;
+    }
+
+    /**
+     * Returns the last captured snapshot of a player if the current thread is not the
+     * main thread, so the live state of the player can not be accessed safely.
+     *
+     * @param player a player, can be null
+     * @return the snapshot, or null if it's the main thread or there is no snapshot
+     */
+    @Nullable
+    public static PlayerSnapshot forCurrentThread(Player player) {
+        return player == null || Bukkit.isPrimaryThread() ? null : get(player);
+    }
+
+    /**
+     * Removes the last captured snapshot of a player.
+     *
+     * @param player a player
+     * @return true if a snapshot was removed, false otherwise
+     */
+    public static boolean release(Player player) {
+        return player != null && SNAPSHOTS.remove(player.getUniqueId()) != null;
+    }
+
+    /**
+     * Removes all the captured snapshots.
+     */
+    public static void clear() {
+        SNAPSHOTS.clear();
+    }
+
+    /**
+     * Returns the time, in milliseconds, after which a snapshot expires.
+     *
+     * @return the maximum age of the snapshots
+     */
+    public static long getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * Checks if the values that were not captured in a snapshot are kept unresolved
+     * outside the main thread, instead of being resolved from the live player.
+     *
+     * @return true if only the snapshots are used outside the main thread
+     */
+    public static boolean isSnapshotOnly() {
+        return snapshotOnly;
+    }
+
+    /**
+     * Sets if the values that were not captured in a snapshot are kept unresolved
+     * outside the main thread. It's disabled by default.
+     *
+     * @param snapshotOnly true to only use the snapshots outside the main thread
+     */
+    public static void setSnapshotOnly(boolean snapshotOnly) {
+        PlayerSnapshot.snapshotOnly = snapshotOnly;
+    }
+
+    /**
+     * Sets the time after which a snapshot expires.
+     *
+     * @param age the maximum age of the snapshots, must be positive
+     * @param unit the unit of the age
+     */
+    public static void setMaxAge(long age, @NotNull TimeUnit unit) {
+        maxAge = unit.toMillis(Exceptions.validate(l -> l > 0, age));
+    }
+}
@@ -0,0 +1,319 @@
+package me.croabeast.beanslib.key;
+
+import lombok.Getter;
+import me.clip.placeholderapi.PlaceholderAPI;
+import me.croabeast.beanslib.map.LruCache;
+import me.croabeast.beanslib.utility.Exceptions;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * A placeholder template, split once into literal segments and typed slots.
+ *
+ * <p> Slots are the {@link PlayerKey} keys, the custom {@code {key}} keys and the
+ * {@code %placeholders%} of {@link PlaceholderAPI}. Rendering a template only joins
+ * the segments with the resolved values of the slots in a presized buffer, so its
+ * cost depends on the size of the output and not on the amount of loaded keys.
+ *
+ * <pre> {@code
+ * Template template = Template.compile("{player} has {coins} coins");
+ *
+ * Map<String, Object> values = new HashMap<>();
+ * values.put("{coins}", 25);
+ *
+ * String text = template.render(player, values); // "Steve has 25 coins"
+ * } </pre>
+ *
+ * <p> Compiled templates are immutable and cached, so they can be rendered from
+ * any thread. Slots without a value are rendered as they were in the source. Outside
+ * the main thread, the keys and placeholders use the values of the last captured
+ * {@link PlayerSnapshot} of the player first, see {@link PlayerSnapshot#isSnapshotOnly()}.
+ *
+ * @author CroaBeast
+ * @since 1.4
+ */
+public final class Template {
+
+    private static final LruCache<String, Template> CACHE = new LruCache<>(512);
+
+    /**
+     * The source string of this template.
+     */
+    @Getter
+    private final String source;
+
+    private final String[] literals;
+    private final Slot[] slots;
+
+    private final int literalLength;
+
+    private Template(String source) {
+        this.source = source;
+
+        List<String> literals = new ArrayList<>();
+        List<Slot> slots = new ArrayList<>();
+
+        final int length = source.length();
+        int last = 0, literalLength = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = source.charAt(i);
+            if (c != '{' && c != '%') continue;
+
+            int end = c == '{' ? findBrace(source, i) : findPercent(source, i);
+            if (end < 0) continue;
+
+            String literal = source.substring(last, i);
+            literals.add(literal);
+            literalLength += literal.length();
+
+            slots.add(new Slot(source.substring(i, end + 1)));
+            last = end + 1;
+            i = end;
+        }
+
+        String literal = source.substring(last);
+        literals.add(literal);
+
+        this.literals = literals.toArray(new String[0]);
+        this.slots = slots.toArray(new Slot[0]);
+        this.literalLength = literalLength + literal.length();
+    }
+
+    private static int findBrace(String s, int start) {
+        for (int i = start + 1; i < s.length(); i++) {
+            char c = s.charAt(i);
+
+            if (c == '{') return -1;
+            if (c == '}') return i > start + 1 ? i : -1;
+        }
+        return -1;
+    }
+
+    private static int findPercent(String s, int start) {
+        for (int i = start + 1; i < s.length(); i++) {
+            char c = s.charAt(i);
+
+            if (c == '%') return i > start + 1 ? i : -1;
+            if (Character.isWhitespace(c)) return -1;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the amount of slots of this template.
+     *
+     * @return the amount of slots
+     */
+    public int getSlotCount() {
+        return slots.length;
+    }
+
+    /**
+     * Returns the types of the slots of this template, in order.
+     *
+     * @return an unmodifiable list of the slot types
+     */
+    @NotNull
+    public List<SlotType> getSlotTypes() {
+        List<SlotType> types = new ArrayList<>(slots.length);
+        for (Slot slot : slots) types.add(slot.type);
+
+        return Collections.unmodifiableList(types);
+    }
+
+    /**
+     * Appends this template to a builder, resolving all its slots.
+     *
+     * @param builder the builder to append the result to
+     * @param player a player to resolve the keys and placeholders, can be null
+     * @param values the values of the custom keys, by key with or without braces, can be null
+     * @param sensitive if the keys are case-sensitive
+     *
+     * @return the same builder
+     */
+    @NotNull
+    public StringBuilder render(@NotNull StringBuilder builder, Player player, Map<String, ?> values, boolean sensitive) {
+        builder.ensureCapacity(builder.length() + literalLength + slots.length * 16);
+
+        final boolean papi = Exceptions.isPluginEnabled("PlaceholderAPI");
+        final Values custom = new Values(values, sensitive);
+
+        for (int i = 0; i < slots.length; i++) {
+            builder.append(literals[i]);
+
+            Slot slot = slots[i];
+            String value = slot.resolve(player, custom, sensitive, papi);
+
+            builder.append(value != null ? value : slot.token);
+        }
+
+        return builder.append(literals[slots.length]);
+    }
+
+    /**
+     * Renders this template, resolving all its slots.
+     *
+     * @param player a player to resolve the keys and placeholders, can be null
+     * @param values the values of the custom keys, by key with or without braces, can be null
+     * @param sensitive if the keys are case-sensitive
+     *
+     * @return the rendered string
+     */
+    @NotNull
+    public String render(Player player, Map<String, ?> values, boolean sensitive) {
+        if (slots.length == 0) return source;
+        return render(new StringBuilder(literalLength + slots.length * 16), player, values, sensitive).toString();
+    }
+
+    /**
+     * Renders this template, resolving all its slots. The keys are not case-sensitive.
+     *
+     * @param player a player to resolve the keys and placeholders, can be null
+     * @param values the values of the custom keys, by key with or without braces, can be null
+     *
+     * @return the rendered string
+     */
+    @NotNull
+    public String render(Player player, Map<String, ?> values) {
+        return render(player, values, false);
+    }
+
+    /**
+     * Renders this template, resolving the {@link PlayerKey} keys and the placeholders.
+     *
+     * @param player a player to resolve the keys and placeholders, can be null
+     * @return the rendered string
+     */
+    @NotNull
+    public String render(Player player) {
+        return render(player, null, false);
+    }
+
+    @Override
+    public String toString() {
+        return "Template{source='" + source + "', slots=" + slots.length + '}';
+    }
+
+    /**
+     * Compiles a string in a template, or returns the cached template of that string.
+     *
+     * @param string a string, can not be null
+     * @return the compiled template
+     */
+    @NotNull
+    public static Template compile(@NotNull String string) {
+        return CACHE.computeIfAbsent(string, Template::new);
+    }
+
+    /**
+     * The type of slot of a template.
+     */
+    public enum SlotType {
+        /**
+         * A loaded {@link PlayerKey} key, like {@code {player}}. Custom values of the
+         * key are used if the key is not loaded anymore.
+         */
+        PLAYER_KEY,
+        /**
+         * A custom {@code {key}}, resolved from the values of the render call. A loaded
+         * {@link PlayerKey} key is used if there is no value.
+         */
+        CUSTOM_KEY,
+        /**
+         * A {@code %placeholder%} of {@link PlaceholderAPI}.
+         */
+        PLACEHOLDER
+    }
+
+    /**
+     * The custom values of a single render call. The keys are looked up by their exact
+     * case first, and the values are only copied with lower case keys the first time a
+     * key is missing in a call that is not case-sensitive.
+     */
+    private static class Values {
+
+        private final Map<String, ?> values;
+        private final boolean sensitive;
+
+        private Map<String, Object> lower = null;
+
+        private Values(Map<String, ?> values, boolean sensitive) {
+            this.values = values;
+            this.sensitive = sensitive;
+        }
+
+        private String get(Slot slot) {
+            if (values == null || values.isEmpty()) return null;
+
+            Object value = values.get(slot.token);
+            if (value == null) value = values.get(slot.name);
+
+            if (value == null && !sensitive) {
+                if (lower == null) {
+                    lower = new HashMap<>(values.size() * 2);
+
+                    for (Map.Entry<String, ?> e : values.entrySet())
+                        if (e.getKey() != null)
+                            lower.putIfAbsent(e.getKey().toLowerCase(Locale.ENGLISH), e.getValue());
+                }
+
+                value = lower.get(slot.lowerToken);
+                if (value == null) value = lower.get(slot.lowerName);
+            }
+
+            return value == null ? null : ValueReplacer.asString(value);
+        }
+    }
+
+    private static class Slot {
+
+        private final String token, name;
+        private final String lowerToken, lowerName;
+        private final SlotType type;
+
+        private Slot(String token) {
+            this.token = token;
+            name = token.substring(1, token.length() - 1);
+
+            lowerToken = token.toLowerCase(Locale.ENGLISH);
+            lowerName = name.toLowerCase(Locale.ENGLISH);
+
+            if (token.charAt(0) == '%')
+                type = SlotType.PLACEHOLDER;
+            else
+                type = PlayerKey.find(token, false) != null ?
+                        SlotType.PLAYER_KEY :
+                        SlotType.CUSTOM_KEY;
+        }
+
+        private String resolve(Player player, Values values, boolean sensitive, boolean papi) {
+            switch (type) {
+                case PLAYER_KEY: {
+                    String value = PlayerKey.valueOf(player, token, sensitive);
+                    return value != null ? value : values.get(this);
+                }
+
+                case CUSTOM_KEY: {
+                    String value = values.get(this);
+                    return value != null ? value : PlayerKey.valueOf(player, token, sensitive);
+                }
+
+                case PLACEHOLDER: default:
+                    if (!papi) return null;
+
+                    if (!Bukkit.isPrimaryThread()) {
+                        PlayerSnapshot snapshot = PlayerSnapshot.get(player);
+
+                        String value = snapshot == null ? null : snapshot.getPlaceholders().get(token);
+                        if (value != null || PlayerSnapshot.isSnapshotOnly()) return value;
+                    }
+
+                    return PlaceholderAPI.setPlaceholders(player, token);
+            }
+        }
+    }
+}
@@ -37,14 +37,7 @@ public class ValueReplacer {
                 StringUtils.isBlank(key) || value == null)
             return string;
 
-        final String val;
-
-        if (value instanceof CommandSender)
-            val = ((CommandSender) value).getName();
-        else
-            val = value instanceof String ?
-                    (String) value :
-                    value.toString();
+        final String val = asString(value);
 
         String temp = Pattern.quote(key);
         if (!sensitive)
@@ -61,6 +54,20 @@ public class ValueReplacer {
         return applier.toString();
     }
 
+    /**
+     * Converts a value to the string used to replace a placeholder: the name if the value
+     * is a {@link CommandSender}, or its string representation otherwise.
+     *
+     * @param value a value, can not be null
+     * @return the string of the value
+     */
+    String asString(Object value) {
+        if (value instanceof CommandSender)
+            return ((CommandSender) value).getName();
+
+        return value instanceof String ? (String) value : value.toString();
+    }
+
     /**
      * Replaces a single placeholder with a value in a string, using case-insensitive mode.
      *
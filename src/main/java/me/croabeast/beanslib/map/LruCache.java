@@ -0,0 +1,121 @@
+package me.croabeast.beanslib.map;
+
+import me.croabeast.beanslib.utility.Exceptions;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A thread-safe, bounded cache that discards the least recently used entry when
+ * its capacity is exceeded.
+ *
+ * <pre> {@code
+ * LruCache<String, Integer> widths = new LruCache<>(512);
+ * int width = widths.computeIfAbsent(text, t -> measure(t));
+ * } </pre>
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ *
+ * @author CroaBeast
+ * @since 1.4
+ */
+public class LruCache<K, V> {
+
+    private final int capacity;
+    private final LinkedHashMap<K, V> map;
+
+    /**
+     * Creates a new cache with a defined capacity.
+     *
+     * @param capacity the maximum amount of entries, must be positive
+     */
+    public LruCache(int capacity) {
+        this.capacity = Exceptions.validate(i -> i > 0, capacity);
+
+        map = new LinkedHashMap<K, V>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > LruCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value of a key, or null if the key is not cached.
+     *
+     * @param key a key
+     * @return the cached value, or null
+     */
+    public synchronized V get(K key) {
+        return map.get(key);
+    }
+
+    /**
+     * Caches a value for a key.
+     *
+     * @param key a key
+     * @param value a value, can not be null
+     */
+    public synchronized void put(K key, V value) {
+        map.put(key, Objects.requireNonNull(value));
+    }
+
+    /**
+     * Returns the cached value of a key, computing and caching it if absent.
+     *
+     * <p> The function runs outside the lock, so two threads may compute the same
+     * key at the same time. If the function returns null, nothing is cached.
+     *
+     * @param key a key
+     * @param function the function that computes the value
+     *
+     * @return the cached or computed value
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> function) {
+        V value = get(key);
+        if (value != null) return value;
+
+        value = function.apply(key);
+        if (value != null) put(key, value);
+
+        return value;
+    }
+
+    /**
+     * Removes the cached value of a key.
+     *
+     * @param key a key
+     * @return the removed value, or null if the key was not cached
+     */
+    public synchronized V remove(K key) {
+        return map.remove(key);
+    }
+
+    /**
+     * Removes all the cached entries.
+     */
+    public synchronized void clear() {
+        map.clear();
+    }
+
+    /**
+     * Returns the amount of cached entries.
+     *
+     * @return the cache size
+     */
+    public synchronized int size() {
+        return map.size();
+    }
+
+    /**
+     * Returns the maximum amount of entries of this cache.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -4,12 +4,14 @@ import lombok.Setter;
 import lombok.experimental.Accessors;
 import me.croabeast.beanslib.Beans;
 import me.croabeast.beanslib.character.CharHandler;
-import me.croabeast.beanslib.character.CharacterInfo;
-import me.croabeast.beanslib.applier.StringApplier;
+import me.croabeast.beanslib.map.LruCache;
+import me.croabeast.beanslib.misc.RenderMetrics;
 import me.croabeast.beanslib.utility.TextUtils;
 import org.apache.commons.lang.StringUtils;
 import org.bukkit.entity.Player;
 
+import java.util.Arrays;
+
 @Accessors(chain = true)
 @Setter
 public final class CenteredMessage {
@@ -19,6 +21,8 @@ public final class CenteredMessage {
 
     private final Player parser, target;
 
+    private static final LruCache<String, Integer> WIDTHS = new LruCache<>(512);
+
     private int limit = CHAT_BOX_LIMIT;
     private boolean colored = true;
 
@@ -38,52 +42,88 @@ public final class CenteredMessage {
     public String center(String string) {
         if (StringUtils.isBlank(string)) return string;
 
+        final long start = RenderMetrics.start();
+        try {
+            return center0(string);
+        } finally {
+            RenderMetrics.record(RenderMetrics.Stage.CENTER, start);
+        }
+    }
+
+    private String center0(String string) {
         String prefix = Beans.getCenterPrefix();
-        int i = prefix.length();
-
-        String output = colored ?
-                Beans.colorize(target, parser, string) :
-                string;
-        if (!string.startsWith(prefix)) return output;
-
-        String initial = StringApplier.simplified(string.substring(i))
-                .apply(TextUtils.STRIP_JSON)
-                .apply(Beans::parseChars)
-                .apply(s -> Beans.colorize(target, parser, s))
-                .toString();
-
-        int messagePxSize = 0;
-        boolean previousCode = false;
-        boolean isBold = false;
-
-        for (char c : initial.toCharArray()) {
-            if (c == '§') {
-                previousCode = true;
-                continue;
-            }
 
-            else if (previousCode) {
-                previousCode = false;
-                isBold = c == 'l' || c == 'L';
+        if (!string.startsWith(prefix))
+            return colored ? Beans.colorize(target, parser, string) : string;
+
+        String payload = string.substring(prefix.length());
+        String rendered = Beans.colorize(target, parser, payload);
+
+        // the rendered text is only colorized again if it has JSON components
+        String stripped = TextUtils.STRIP_JSON.apply(payload);
+        if (!stripped.equals(payload))
+            stripped = Beans.colorize(target, parser, stripped);
+        else stripped = rendered;
+
+        int toCompensate = limit - measure(stripped) / 2;
+        String output = colored ? rendered : payload;
+
+        if (toCompensate <= 0) return output;
+
+        // 4 is the SPACE char length (3) + 1
+        int spaces = (toCompensate + 3) / 4;
+        char[] padding = new char[spaces];
+        Arrays.fill(padding, ' ');
+
+        return new StringBuilder(spaces + output.length())
+                .append(padding).append(output).toString();
+    }
+
+    /**
+     * Returns the length in pixels of a colored string, including the 1 pixel space
+     * after every character. Color and format codes are not counted, and bold text
+     * is measured using the bold length of every character.
+     *
+     * <p> Hex colors in the {@code §x§R§R§G§G§B§B} format are supported. The results
+     * are memoized, so measuring the same string again is a single lookup.
+     *
+     * @param string a colored string
+     * @return the length in pixels
+     */
+    public static int measure(String string) {
+        if (StringUtils.isEmpty(string)) return 0;
+        return WIDTHS.computeIfAbsent(string, CenteredMessage::measure0);
+    }
+
+    private static int measure0(String string) {
+        final int length = string.length();
+
+        int size = 0;
+        boolean bold = false;
+
+        for (int i = 0; i < length; i++) {
+            char c = string.charAt(i);
+
+            if (c == '§' && i + 1 < length) {
+                char code = Character.toLowerCase(string.charAt(++i));
+
+                if (code == 'x') {
+                    i += 12;
+                    bold = false;
+                }
+                else if (code == 'l') bold = true;
+                else if (code == 'r' || isColor(code)) bold = false;
+
                 continue;
             }
 
-            CharacterInfo info = CharHandler.getInfo(c);
-            messagePxSize += isBold ?
-                    info.getBoldLength() : info.getLength();
-            messagePxSize++;
+            size += CharHandler.getLength(c, bold) + 1;
         }
 
-        int halvedMessageSize = messagePxSize / 2;
-        int toCompensate = limit - halvedMessageSize;
-        int compensated = 0;
-
-        StringBuilder sb = new StringBuilder();
-        while (compensated < toCompensate) {
-            sb.append(" ");
-            compensated += 4; // 4 is the SPACE char length (3) + 1
-        }
+        return size;
+    }
 
-        return sb + output.substring(prefix.length());
+    private static boolean isColor(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f');
     }
 }
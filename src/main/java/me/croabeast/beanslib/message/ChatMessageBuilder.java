@@ -3,6 +3,7 @@ package me.croabeast.beanslib.message;
 import me.croabeast.beanslib.Beans;
 import me.croabeast.beanslib.applier.StringApplier;
 import me.croabeast.beanslib.misc.CollectionBuilder;
+import me.croabeast.beanslib.misc.RenderMetrics;
 import me.croabeast.beanslib.utility.ArrayUtils;
 import me.croabeast.beanslib.utility.Exceptions;
 import me.croabeast.beanslib.utility.TextUtils;
@@ -439,8 +440,13 @@ public class ChatMessageBuilder {
             throw new IllegalStateException(m);
         }
 
-        return CollectionBuilder.of(map.values())
+        final long start = RenderMetrics.start();
+
+        BaseComponent[] components = CollectionBuilder.of(map.values())
                 .map(ChatMessage::compile).toArray();
+
+        RenderMetrics.record(RenderMetrics.Stage.BUILD, start);
+        return components;
     }
 
     /**
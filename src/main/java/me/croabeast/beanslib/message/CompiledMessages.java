@@ -0,0 +1,243 @@
+package me.croabeast.beanslib.message;
+
+import lombok.Getter;
+import me.croabeast.beanslib.Beans;
+import me.croabeast.beanslib.BeansLib;
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.regex.Matcher;
+
+/**
+ * A list of message lines that were pre-processed once to be sent many times using
+ * {@link MessageSender#send(CompiledMessages)}.
+ *
+ * <p> Every line stores the result of replacing the prefix key, the amount of blank
+ * lines, the {@link MessageExecutor} that identifies it and the payload without the
+ * flag header, so none of these steps are repeated on every send.
+ *
+ * <p> The compiled lines are invalidated automatically when the loaded {@link BeansLib}
+ * instance, its prefix or internal regex settings, or the message executors change.
+ * In that case, the lines are compiled again on the next send.
+ *
+ * <pre> {@code
+ * CompiledMessages motd = CompiledMessages.compile(config.getStringList("motd"));
+ *
+ * // on every join
+ * new MessageSender(player).send(motd);
+ * } </pre>
+ *
+ * @author CroaBeast
+ * @since 1.4
+ */
+public final class CompiledMessages implements Iterable<CompiledMessages.Line> {
+
+    private final List<String> source;
+    private volatile State state;
+
+    private CompiledMessages(List<String> source) {
+        this.source = source;
+        state = new State(source);
+    }
+
+    /**
+     * Returns the lines of this object, compiling them again if they are outdated.
+     *
+     * @return an unmodifiable list of the compiled lines
+     */
+    @NotNull
+    public List<Line> getLines() {
+        State s = state;
+
+        if (!s.isValid()) {
+            synchronized (this) {
+                if (!(s = state).isValid()) state = s = new State(source);
+            }
+        }
+
+        return s.lines;
+    }
+
+    /**
+     * Returns an unmodifiable list of the original lines used to compile this object.
+     *
+     * @return the original lines
+     */
+    @NotNull
+    public List<String> getSource() {
+        return source;
+    }
+
+    /**
+     * Checks if the compiled lines are still valid for the current settings.
+     *
+     * @return true if the lines are up-to-date, false otherwise
+     */
+    public boolean isValid() {
+        return state.isValid();
+    }
+
+    /**
+     * Returns the amount of lines, ignoring the null lines of the original list.
+     *
+     * @return the amount of lines
+     */
+    public int size() {
+        return getLines().size();
+    }
+
+    /**
+     * Checks if there are no lines to send.
+     *
+     * @return true if there are no lines, false otherwise
+     */
+    public boolean isEmpty() {
+        return getLines().isEmpty();
+    }
+
+    @NotNull
+    @Override
+    public Iterator<Line> iterator() {
+        return getLines().iterator();
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledMessages{lines=" + getLines() + '}';
+    }
+
+    /**
+     * Compiles a list of strings. Null strings are ignored.
+     *
+     * @param list a string list, can be null
+     * @return the compiled messages
+     */
+    @NotNull
+    public static CompiledMessages compile(List<String> list) {
+        List<String> source = new ArrayList<>();
+
+        if (list != null)
+            for (String s : list) if (s != null) source.add(s);
+
+        return new CompiledMessages(Collections.unmodifiableList(source));
+    }
+
+    /**
+     * Compiles an array of strings. Null strings are ignored.
+     *
+     * @param lines an array of strings, can be null
+     * @return the compiled messages
+     */
+    @NotNull
+    public static CompiledMessages compile(String... lines) {
+        return compile(lines == null ? null : Arrays.asList(lines));
+    }
+
+    private static class State {
+
+        private final BeansLib lib = Beans.getLoaded();
+        private final int settings = lib.getSettingsHash();
+        private final int executors = MessageExecutor.getVersion();
+
+        private final List<Line> lines;
+
+        private State(List<String> source) {
+            List<Line> lines = new ArrayList<>(source.size());
+            for (String s : source) lines.add(new Line(lib, s));
+
+            this.lines = Collections.unmodifiableList(lines);
+        }
+
+        private boolean isValid() {
+            BeansLib current = Beans.getLoaded();
+
+            return lib == current &&
+                    settings == current.getSettingsHash() &&
+                    executors == MessageExecutor.getVersion();
+        }
+    }
+
+    /**
+     * A single pre-processed message line.
+     */
+    @Getter
+    public static final class Line {
+
+        /**
+         * The line with the prefix key already replaced, and its flag header.
+         */
+        private final String line;
+        /**
+         * The line without its flag header.
+         */
+        private final String payload;
+
+        /**
+         * The parsed header of this line.
+         */
+        private final MessageHeader header;
+        /**
+         * The amount of blank lines to send, or 0 if this is not a blank-space line.
+         */
+        private final int blankCount;
+
+        private Line(BeansLib lib, String string) {
+            line = lib.replacePrefixKey(string, false);
+
+            Matcher m = lib.getBlankPattern().matcher(line);
+            int count = 0;
+
+            if (m.find())
+                try {
+                    count = Integer.parseInt(m.group(1));
+                } catch (Exception ignored) {}
+
+            blankCount = Math.max(count, 0);
+
+            header = MessageHeader.parse(line);
+            payload = header.getPayload();
+        }
+
+        /**
+         * Returns the executor that identifies this line.
+         *
+         * @return the message executor
+         */
+        public MessageExecutor getExecutor() {
+            return header.getExecutor();
+        }
+
+        /**
+         * Returns the flag of the executor of this line.
+         *
+         * @return the message flag
+         */
+        public MessageFlag getFlag() {
+            return header.getFlag();
+        }
+
+        /**
+         * Checks if this line only adds blank lines.
+         *
+         * @return true if it's a blank-space line, false otherwise
+         */
+        public boolean isBlankSpace() {
+            return blankCount > 0;
+        }
+
+        /**
+         * Checks if this line is blank, after the prefix key replacement.
+         *
+         * @return true if the line is blank, false otherwise
+         */
+        public boolean isBlank() {
+            return StringUtils.isBlank(line);
+        }
+
+        @Override
+        public String toString() {
+            return "Line{flag=" + getFlag() + ", blanks=" + blankCount + ", line='" + line + "'}";
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package me.croabeast.beanslib.message;
+
+import lombok.Getter;
+import me.croabeast.beanslib.misc.DisableHook;
+import me.croabeast.beanslib.utility.Exceptions;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A scheduler that spreads the deliveries of large broadcasts over several ticks.
+ *
+ * <p> Every delivery is queued per recipient, and each server tick the queues are
+ * drained in a round-robin way until the defined time budget is exhausted. Remaining
+ * deliveries are carried over to the next tick, keeping the order of the messages of
+ * every recipient.
+ *
+ * <p> When the plugin is disabled, the queued deliveries are flushed immediately, and
+ * deliveries scheduled while the plugin is disabling are executed right away.
+ *
+ * <pre> {@code
+ * DeliveryScheduler scheduler = new DeliveryScheduler(plugin).setBudget(2000);
+ *
+ * new MessageSender(Bukkit.getOnlinePlayers(), null)
+ *         .setScheduler(scheduler)
+ *         .send(plugin.getConfig().getStringList("broadcast"));
+ * } </pre>
+ *
+ * @author CroaBeast
+ * @since 1.4
+ */
+public final class DeliveryScheduler {
+
+    private final Plugin plugin;
+
+    private final Map<UUID, Deque<Delivery>> queues = new LinkedHashMap<>();
+    private final Deque<UUID> order = new ArrayDeque<>();
+
+    private BukkitRunnable task = null;
+    private boolean hooked = false;
+
+    /**
+     * The time budget, in microseconds, that every tick can use to deliver messages.
+     */
+    @Getter
+    private long budget = 1000;
+
+    private int depth = 0;
+
+    private long delivered = 0, totalLatency = 0, maxLatency = 0;
+
+    /**
+     * Creates a new scheduler that uses the tasks of the defined plugin.
+     *
+     * @param plugin a plugin instance
+     * @throws NullPointerException if the plugin is null
+     */
+    public DeliveryScheduler(Plugin plugin) {
+        this.plugin = Objects.requireNonNull(plugin);
+    }
+
+    /**
+     * Sets the time budget, in microseconds, that every tick can use to deliver messages.
+     *
+     * <p> At least one delivery is done every tick, even if the budget is exceeded.
+     *
+     * @param micros the budget in microseconds, must be positive
+     * @return a reference of this object
+     */
+    public DeliveryScheduler setBudget(long micros) {
+        budget = Exceptions.validate(l -> l > 0, micros);
+        return this;
+    }
+
+    /**
+     * Queues a delivery for the defined recipient. Deliveries of the same recipient
+     * are always executed in the same order they were queued.
+     *
+     * @param target the recipient
+     * @param delivery the delivery action
+     *
+     * @throws NullPointerException if the target or the delivery are null
+     */
+    public void schedule(@NotNull Player target, @NotNull BooleanSupplier delivery) {
+        if (!queue(target, delivery)) flush();
+    }
+
+    private synchronized boolean queue(Player target, BooleanSupplier delivery) {
+        Objects.requireNonNull(delivery);
+        UUID uuid = Exceptions.checkPlayer(target).getUniqueId();
+
+        Deque<Delivery> queue = queues.get(uuid);
+        if (queue == null) {
+            queues.put(uuid, queue = new ArrayDeque<>());
+            order.add(uuid);
+        }
+
+        queue.add(new Delivery(target, delivery));
+        depth++;
+
+        // tasks can not be scheduled while disabling, so the caller flushes the queues
+        if (!plugin.isEnabled()) return false;
+        if (task != null) return true;
+
+        if (!hooked) hooked = DisableHook.register(plugin, this::shutdown);
+
+        task = new BukkitRunnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        };
+        task.runTaskTimer(plugin, 1, 1);
+        return true;
+    }
+
+    private void shutdown() {
+        synchronized (this) {
+            hooked = false;
+        }
+        flush();
+    }
+
+    private synchronized Delivery poll() {
+        while (!order.isEmpty()) {
+            UUID uuid = order.poll();
+            Deque<Delivery> queue = queues.get(uuid);
+
+            Delivery d = queue.poll();
+            if (d == null) {
+                queues.remove(uuid);
+                continue;
+            }
+
+            if (!d.target.isOnline()) {
+                depth -= queue.size() + 1;
+                queues.remove(uuid);
+                continue;
+            }
+
+            if (queue.isEmpty()) queues.remove(uuid);
+            else order.add(uuid);
+
+            depth--;
+            return d;
+        }
+
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        return null;
+    }
+
+    private synchronized void record(Delivery delivery) {
+        long latency = System.nanoTime() - delivery.queued;
+
+        delivered++;
+        totalLatency += latency;
+        if (latency > maxLatency) maxLatency = latency;
+    }
+
+    private void drain() {
+        final long limit = System.nanoTime() + budget * 1000;
+
+        do {
+            Delivery d = poll();
+            if (d == null) return;
+
+            try {
+                d.action.getAsBoolean();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+
+            record(d);
+        }
+        while (System.nanoTime() < limit);
+    }
+
+    /**
+     * Delivers all the queued messages immediately, ignoring the time budget.
+     */
+    public void flush() {
+        Delivery d;
+
+        while ((d = poll()) != null) {
+            try {
+                d.action.getAsBoolean();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            record(d);
+        }
+    }
+
+    /**
+     * Discards all the queued messages and stops the tick task.
+     *
+     * <p> The queued messages are not delivered; use {@link #flush()} first to deliver them.
+     */
+    public synchronized void cancel() {
+        queues.clear();
+        order.clear();
+        depth = 0;
+
+        if (task == null) return;
+
+        task.cancel();
+        task = null;
+    }
+
+    /**
+     * Returns the amount of deliveries that are waiting to be executed.
+     *
+     * @return the queue depth
+     */
+    public synchronized int getQueueDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the amount of recipients that have pending deliveries.
+     *
+     * @return the amount of recipients
+     */
+    public synchronized int getPendingRecipients() {
+        return queues.size();
+    }
+
+    /**
+     * Returns the amount of deliveries executed since the creation of the scheduler
+     * or the last {@link #resetMetrics()} call.
+     *
+     * @return the amount of executed deliveries
+     */
+    public synchronized long getDelivered() {
+        return delivered;
+    }
+
+    /**
+     * Returns the average time, in microseconds, between queueing a delivery and
+     * its execution.
+     *
+     * @return the average latency in microseconds
+     */
+    public synchronized long getAverageLatency() {
+        return delivered == 0 ? 0 : (totalLatency / delivered) / 1000;
+    }
+
+    /**
+     * Returns the maximum time, in microseconds, between queueing a delivery and
+     * its execution.
+     *
+     * @return the maximum latency in microseconds
+     */
+    public synchronized long getMaxLatency() {
+        return maxLatency / 1000;
+    }
+
+    /**
+     * Resets the delivery and latency metrics of this scheduler.
+     */
+    public synchronized void resetMetrics() {
+        delivered = totalLatency = maxLatency = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "DeliveryScheduler{budget=" + budget + "us, depth=" + getQueueDepth() +
+                ", delivered=" + getDelivered() + ", avgLatency=" +
+                getAverageLatency() + "us, maxLatency=" + getMaxLatency() + "us}";
+    }
+
+    private static class Delivery {
+
+        private final Player target;
+        private final BooleanSupplier action;
+        private final long queued = System.nanoTime();
+
+        private Delivery(Player target, BooleanSupplier action) {
+            this.target = target;
+            this.action = action;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import me.croabeast.beanslib.Beans;
 import me.croabeast.beanslib.applier.StringApplier;
 import me.croabeast.beanslib.discord.Webhook;
 import me.croabeast.beanslib.key.PlayerKey;
+import me.croabeast.beanslib.map.LruCache;
 import me.croabeast.beanslib.misc.BossbarBuilder;
 import me.croabeast.beanslib.misc.Regex;
 import me.croabeast.beanslib.reflect.ActionBarHandler;
@@ -12,17 +13,18 @@ import me.croabeast.beanslib.reflect.TitleHandler;
 import me.croabeast.beanslib.utility.Exceptions;
 import me.croabeast.beanslib.utility.TextUtils;
 import me.croabeast.neoprismatic.NeoPrismaticAPI;
+import net.md_5.bungee.api.chat.BaseComponent;
+import net.md_5.bungee.chat.ComponentSerializer;
 import org.apache.commons.lang.StringUtils;
-import org.bukkit.Bukkit;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -42,12 +44,17 @@ import java.util.regex.Pattern;
 public abstract class MessageExecutor implements Cloneable {
 
     private static final Map<MessageFlag, MessageExecutor> MAP, DEFS;
+    private static final Map<String, MessageFlag> KEYS = new ConcurrentHashMap<>();
+
+    private static final LruCache<String, BaseComponent[]> JSON_CACHE = new LruCache<>(256);
 
     @Getter
     private static String[] delimiters = {"[", "]"};
     @Getter
     private static int[] titleTicks = {8, 50, 8};
 
+    private static final AtomicInteger VERSION = new AtomicInteger();
+
     static {
         MAP = new LinkedHashMap<>();
         DEFS = new LinkedHashMap<>();
@@ -62,6 +69,8 @@ public abstract class MessageExecutor implements Cloneable {
 
     private boolean color = false;
 
+    private volatile Compiled compiled = null;
+
     /**
      * A message executor for the action bar message flag.
      *
@@ -70,9 +79,9 @@ public abstract class MessageExecutor implements Cloneable {
      */
     public static final MessageExecutor ACTION_BAR = new MessageExecutor(MessageFlag.ACTION_BAR) {
         @Override
-        public boolean execute(Player target, Player parser, String input) {
+        public boolean execute(Player target, Player parser, MessageHeader header, String payload) {
             try {
-                return ActionBarHandler.send(target, formatString(target, parser, input));
+                return ActionBarHandler.send(target, formatString(target, parser, payload));
             } catch (Exception e) {
                 e.printStackTrace();
                 return false;
@@ -94,13 +103,8 @@ public abstract class MessageExecutor implements Cloneable {
      */
     public static final MessageExecutor TITLE = new MessageExecutor(MessageFlag.TITLE, "(:\\d+)?") {
         @Override
-        public boolean execute(Player target, Player parser, String input) {
-            Matcher m1 = getPattern().matcher(input);
-            String tm = null;
-
-            try {
-                if (m1.find()) tm = m1.group(1).substring(1);
-            } catch (Exception ignored) {}
+        public boolean execute(Player target, Player parser, MessageHeader header, String payload) {
+            String tm = header.getFlag() == getFlag() ? header.getArguments() : null;
 
             int[] a = titleTicks;
             int time = a[1];
@@ -110,7 +114,7 @@ public abstract class MessageExecutor implements Cloneable {
                     time = Integer.parseInt(tm) * 20;
             } catch (Exception ignored) {}
 
-            String[] temp = Beans.splitLine(formatString(target, parser, input));
+            String[] temp = Beans.splitLine(formatString(target, parser, payload));
             String sub = temp.length > 1 ? temp[1] : "";
 
             try {
@@ -135,28 +139,24 @@ public abstract class MessageExecutor implements Cloneable {
      */
     public static final MessageExecutor WEBHOOK = new MessageExecutor(MessageFlag.WEBHOOK, "(:.+)?") {
         @Override
-        public boolean execute(Player target, Player parser, String input) {
+        public boolean execute(Player target, Player parser, MessageHeader header, String payload) {
             ConfigurationSection id = Beans.getWebhookSection();
             if (id == null) return false;
 
             List<String> list = new ArrayList<>(id.getKeys(false));
             if (list.isEmpty()) return false;
 
-            Matcher m3 = getPattern().matcher(input);
-            String line = formatString(target, parser, input);
+            String line = formatString(target, parser, payload);
 
             String path = list.get(0);
 
-            if (m3.find()) {
-                String[] split = m3.group().replace(delimiters[0], "")
-                        .replace(delimiters[1], "").split(":", 2);
+            if (header.getFlag() == getFlag() && header.getArguments() != null)
+                path = header.getArguments();
 
-                String temp = split.length == 2 ? split[1] : null;
-                if (temp != null) path = temp;
-            }
+            if ((id = id.getConfigurationSection(path)) == null) return false;
 
-            return (id = id.getConfigurationSection(path)) != null
-                    && new Webhook(id, line).send();
+            CompletableFuture<Boolean> future = new Webhook(id, line).sendAsync();
+            return !future.isDone() || future.join();
         }
     };
 
@@ -168,21 +168,24 @@ public abstract class MessageExecutor implements Cloneable {
      *
      * <p> The input string must be a valid JSON object that follows the Minecraft tellraw format.
      *
+     * <p> The formatted JSON is parsed once into chat components and cached, so sending the
+     * same line to many players only parses it once.
+     *
      * @see <a href="https://minecraft.wiki/w/Raw_JSON_text_format">Minecraft tellraw format</a>
      */
     public static final MessageExecutor JSON = new MessageExecutor(MessageFlag.JSON) {
         @Override
-        public boolean execute(Player target, Player parser, String input) {
-            if (StringUtils.isBlank(input)) return false;
+        public boolean execute(Player target, Player parser, MessageHeader header, String payload) {
+            if (StringUtils.isBlank(payload)) return false;
 
             try {
                 Exceptions.checkPlayer(target);
 
-                Bukkit.dispatchCommand(
-                        Bukkit.getConsoleSender(), "minecraft:tellraw " +
-                                target.getName() + " " +
-                                formatString(target, parser, input)
-                );
+                String json = formatString(target, parser, payload).trim();
+                BaseComponent[] components =
+                        JSON_CACHE.computeIfAbsent(json, ComponentSerializer::parse);
+
+                target.spigot().sendMessage(components);
                 return true;
             }
             catch (Exception e) {
@@ -205,9 +208,9 @@ public abstract class MessageExecutor implements Cloneable {
      */
     public static final MessageExecutor BOSSBAR = new MessageExecutor(MessageFlag.BOSSBAR, "(:.+)?") {
         @Override
-        public boolean execute(Player target, Player parser, String input) {
+        public boolean execute(Player target, Player parser, MessageHeader header, String payload) {
             Plugin plugin = Beans.getPlugin();
-            Matcher m2 = Beans.getBossbarPattern().matcher(input);
+            Matcher m2 = Beans.getBossbarPattern().matcher(payload);
 
             try {
                 if (m2.find()) {
@@ -220,7 +223,7 @@ public abstract class MessageExecutor implements Cloneable {
                     return new BossbarBuilder(plugin, target, c).display();
                 }
 
-                return new BossbarBuilder(plugin, target, input).display();
+                return new BossbarBuilder(plugin, target, payload).display();
             } catch (Exception e) {
                 return false;
             }
@@ -240,9 +243,9 @@ public abstract class MessageExecutor implements Cloneable {
         }
 
         @Override
-        public boolean execute(Player target, Player parser, String input) {
+        public boolean execute(Player target, Player parser, MessageHeader header, String payload) {
             try {
-                return new ChatMessageBuilder(target, parser, input).send();
+                return new ChatMessageBuilder(target, parser, payload).send();
             } catch (Exception e) {
                 e.printStackTrace();
                 return false;
@@ -254,6 +257,7 @@ public abstract class MessageExecutor implements Cloneable {
         this.flag = flag;
         this.regex = regex;
 
+        KEYS.put(flag.getName(), flag);
         MAP.put(flag, this);
         DEFS.put(flag, clone());
     }
@@ -292,9 +296,24 @@ public abstract class MessageExecutor implements Cloneable {
      */
     public MessageExecutor setRegex(@Regex String regex) {
         this.regex = regex;
+        VERSION.incrementAndGet();
         return this;
     }
 
+    /**
+     * Executes a message whose header was already parsed, for the target player and the
+     * parser player. The header is not parsed again, so a line can be parsed once and
+     * sent to many players.
+     *
+     * @param target the player who receives the message
+     * @param parser the player who parses the message
+     * @param header the parsed header of the line
+     * @param payload the message without its header
+     *
+     * @return true if the message was executed successfully, false otherwise
+     */
+    public abstract boolean execute(Player target, Player parser, MessageHeader header, String payload);
+
     /**
      * Executes the message for the target player and the parser player, based on the
      * message flag and the input string.
@@ -305,7 +324,10 @@ public abstract class MessageExecutor implements Cloneable {
      *
      * @return true if the message was executed successfully, false otherwise
      */
-    public abstract boolean execute(Player target, Player parser, String input);
+    public boolean execute(Player target, Player parser, String input) {
+        MessageHeader header = MessageHeader.parse(input);
+        return execute(target, parser, header, header.getFlag() == flag ? header.getPayload() : input);
+    }
 
     /**
      * Executes the message for the same player as both the target and the parser, based
@@ -347,15 +369,31 @@ public abstract class MessageExecutor implements Cloneable {
      * @return the pattern for this message executor
      */
     public Pattern getPattern() {
-        return Pattern.compile(getRegex());
+        return compiled().pattern;
+    }
+
+    private Compiled compiled() {
+        Compiled c = compiled;
+
+        if (c == null || c.regex != regex || c.delimiters != delimiters)
+            compiled = c = new Compiled(regex, delimiters, getRegex());
+
+        return c;
+    }
+
+    boolean acceptsArguments(String args) {
+        Pattern p = compiled().arguments;
+
+        if (p == null) return args == null;
+        return p.matcher(args == null ? "" : ":" + args).matches();
     }
 
-    String formatString(Player target, Player parser, String string) {
-        final StringApplier applier = StringApplier.simplified(string);
-        Matcher matcher = getPattern().matcher(string);
+    boolean isScannable() {
+        return StringUtils.isBlank(regex) || regex.startsWith("(:");
+    }
 
-        while (matcher.find())
-            applier.apply(s -> s.replace(matcher.group(), ""));
+    String formatString(Player target, Player parser, String payload) {
+        final StringApplier applier = StringApplier.simplified(payload);
 
         applier.apply(TextUtils.STRIP_JSON);
 
@@ -382,6 +420,67 @@ public abstract class MessageExecutor implements Cloneable {
         return MAP.get(flag);
     }
 
+    static MessageExecutor fromKey(String key) {
+        MessageFlag flag = KEYS.get(key.toLowerCase(Locale.ENGLISH));
+        return flag == null ? null : MAP.get(flag);
+    }
+
+    static List<MessageExecutor> customRegexExecutors() {
+        List<MessageExecutor> list = null;
+
+        for (MessageExecutor e : MAP.values()) {
+            if (e.isScannable()) continue;
+
+            if (list == null) list = new ArrayList<>();
+            list.add(e);
+        }
+
+        return list == null ? Collections.emptyList() : list;
+    }
+
+    /**
+     * Registers a custom header key for the executor of a message flag, so lines
+     * like {@code [key] ...} or {@code [key:args] ...} are sent by that executor.
+     *
+     * <pre> {@code
+     * MessageExecutor.registerKey("ab", MessageFlag.ACTION_BAR);
+     * // "[ab] Hello" is now an action bar message
+     * } </pre>
+     *
+     * <p> Keys are case-insensitive and can not contain the colon character.
+     *
+     * @param key the header key
+     * @param flag the message flag
+     *
+     * @throws IllegalArgumentException if the key is blank or contains a colon
+     * @throws NullPointerException if the flag is null
+     */
+    public static void registerKey(String key, MessageFlag flag) {
+        if (StringUtils.isBlank(key) || key.indexOf(':') >= 0)
+            throw new IllegalArgumentException("Key can not be blank or contain ':'");
+
+        KEYS.put(key.toLowerCase(Locale.ENGLISH), Objects.requireNonNull(flag));
+        VERSION.incrementAndGet();
+    }
+
+    /**
+     * Removes a custom header key. The default keys of every flag can not be removed.
+     *
+     * @param key the header key
+     * @return true if the key was removed, false otherwise
+     */
+    public static boolean unregisterKey(String key) {
+        if (StringUtils.isBlank(key)) return false;
+        key = key.toLowerCase(Locale.ENGLISH);
+
+        MessageFlag flag = KEYS.get(key);
+        if (flag == null || flag.getName().equals(key)) return false;
+
+        KEYS.remove(key);
+        VERSION.incrementAndGet();
+        return true;
+    }
+
     /**
      * Sets the delimiters for the message executors.
      *
@@ -396,6 +495,7 @@ public abstract class MessageExecutor implements Cloneable {
                 Exceptions.validate(StringUtils::isNotBlank, start),
                 Exceptions.validate(StringUtils::isNotBlank, end)
         };
+        VERSION.incrementAndGet();
     }
 
     /**
@@ -434,24 +534,15 @@ public abstract class MessageExecutor implements Cloneable {
      * Returns the message executor that identifies the given string, based on the message
      * flag pattern.
      *
-     * <p> This method is used to find the message executor that has the pattern that matches
-     * the input string.
+     * <p> The header of the string is parsed using {@link MessageHeader#parse(String)}, so
+     * the executor is found with a single scan and a key lookup.
      *
      * @param string the string to identify
      * @return the message executor that identifies the string, or {@link #CHAT} if none
      */
     @NotNull
     public static MessageExecutor identifyKey(String string) {
-        if (StringUtils.isBlank(string)) return CHAT;
-
-        for (MessageExecutor e : MAP.values())
-            if (e.getPattern().matcher(string).find())
-                return e;
-
-        if (Beans.getBossbarPattern()
-                .matcher(string).find()) return BOSSBAR;
-
-        return CHAT;
+        return MessageHeader.parse(string).getExecutor();
     }
 
     /**
@@ -461,5 +552,32 @@ public abstract class MessageExecutor implements Cloneable {
     public static void setDefaults() {
         MAP.clear();
         MAP.putAll(DEFS);
+        VERSION.incrementAndGet();
+    }
+
+    /**
+     * Returns a counter that changes every time the delimiters, a regex or the
+     * executors are modified, so cached results of this class can be invalidated.
+     *
+     * @return the current version
+     */
+    static int getVersion() {
+        return VERSION.get();
+    }
+
+    private static class Compiled {
+
+        private final String regex;
+        private final String[] delimiters;
+
+        private final Pattern pattern, arguments;
+
+        private Compiled(String regex, String[] delimiters, String full) {
+            this.regex = regex;
+            this.delimiters = delimiters;
+
+            pattern = Pattern.compile(full);
+            arguments = StringUtils.isBlank(regex) ? null : Pattern.compile("(?i)" + regex);
+        }
     }
 }
@@ -2,7 +2,9 @@ package me.croabeast.beanslib.message;
 
 import org.apache.commons.lang.StringUtils;
 
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * An enum that represents different types of messages that can be sent to players.
@@ -37,6 +39,15 @@ public enum MessageFlag {
      */
     TITLE;
 
+    private static final Map<String, MessageFlag> NAMES = new HashMap<>();
+
+    static {
+        for (MessageFlag flag : values()) {
+            NAMES.put(flag.getName(), flag);
+            NAMES.put(flag.name().toLowerCase(Locale.ENGLISH), flag);
+        }
+    }
+
     /**
      * Returns the name of the message flag in lowercase and with dashes instead of underscores.
      * For example, ACTION_BAR becomes action-bar.
@@ -61,10 +72,7 @@ public enum MessageFlag {
         if (StringUtils.isBlank(string))
             return CHAT;
 
-        for (MessageFlag flag : values())
-            if (string.matches("(?i)" + flag.getName()))
-                return flag;
-
-        return CHAT;
+        MessageFlag flag = NAMES.get(string.toLowerCase(Locale.ENGLISH));
+        return flag == null ? CHAT : flag;
     }
 }
@@ -0,0 +1,177 @@
+package me.croabeast.beanslib.message;
+
+import lombok.Getter;
+import me.croabeast.beanslib.Beans;
+import org.apache.commons.lang.StringUtils;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.regex.Matcher;
+
+/**
+ * The parsed header of a message line, like {@code [title:5]} or {@code [webhook:path]},
+ * that defines which {@link MessageExecutor} will send the line and its arguments.
+ *
+ * <p> The header is read by a single scan using the defined delimiters
+ * ({@link MessageExecutor#getDelimiters()}), and the executor is found with a hash
+ * lookup of the header key. Custom keys can be added using
+ * {@link MessageExecutor#registerKey(String, MessageFlag)}.
+ *
+ * <p> {@link MessageSender} parses the header of every line once, and passes it to
+ * {@link MessageExecutor#execute(Player, Player, MessageHeader, String)} for every target.
+ * The keys of the sender are also applied to the header, so a line like
+ * {@code [title:{time}]} is only parsed again if its header changed.
+ *
+ * <pre> {@code
+ * MessageHeader header = MessageHeader.parse("[title:5] Hello<n>World");
+ *
+ * header.getFlag(); // TITLE
+ * header.getArguments(); // "5"
+ * header.getPayload(); // " Hello<n>World"
+ * } </pre>
+ *
+ * @author CroaBeast
+ * @since 1.4
+ */
+@Getter
+public final class MessageHeader {
+
+    /**
+     * The executor that will send the line.
+     */
+    @NotNull
+    private final MessageExecutor executor;
+
+    /**
+     * The key of the header as written in the line, or null if the line has no header.
+     */
+    @Nullable
+    private final String key;
+    /**
+     * The arguments written after the first colon of the header, or null if none.
+     */
+    @Nullable
+    private final String arguments;
+
+    /**
+     * The index of the first character after the header, 0 if there is no header.
+     */
+    private final int end;
+
+    private final String input;
+
+    private MessageHeader(String input, MessageExecutor executor, String key, String arguments, int end) {
+        this.input = input;
+        this.executor = executor;
+        this.key = key;
+        this.arguments = arguments;
+        this.end = end;
+    }
+
+    /**
+     * Returns the flag of the executor of this header.
+     *
+     * @return the message flag
+     */
+    @NotNull
+    public MessageFlag getFlag() {
+        return executor.getFlag();
+    }
+
+    /**
+     * Checks if the line has a header that was removed from its payload.
+     *
+     * @return true if the header is present, false otherwise
+     */
+    public boolean isPresent() {
+        return end > 0;
+    }
+
+    /**
+     * Returns the line without this header.
+     *
+     * @return the payload of the line
+     */
+    public String getPayload() {
+        return end == 0 ? input : input.substring(end);
+    }
+
+    /**
+     * Returns the first delimited group of a line, like {@code [title:{time}]}, even if
+     * it's not a valid header yet, or null if the line doesn't start with one.
+     *
+     * @param string a message line
+     * @return the first delimited group, or null
+     */
+    @Nullable
+    static String findPrefix(String string) {
+        if (StringUtils.isBlank(string)) return null;
+
+        final String[] d = MessageExecutor.getDelimiters();
+        if (!string.startsWith(d[0])) return null;
+
+        int close = string.indexOf(d[1], d[0].length());
+        return close < 0 ? null : string.substring(0, close + d[1].length());
+    }
+
+    @Override
+    public String toString() {
+        return "MessageHeader{flag=" + getFlag() + ", key=" + key + ", arguments=" + arguments + '}';
+    }
+
+    /**
+     * Parses the header of a message line.
+     *
+     * <p> If the line has no valid header, the {@link MessageExecutor#BOSSBAR} executor
+     * is used if the line is a custom bossbar placeholder, otherwise the
+     * {@link MessageExecutor#CHAT} executor is used.
+     *
+     * @param string a message line
+     * @return the parsed header, never null
+     */
+    @NotNull
+    public static MessageHeader parse(String string) {
+        if (StringUtils.isBlank(string))
+            return new MessageHeader(string, MessageExecutor.CHAT, null, null, 0);
+
+        final String[] d = MessageExecutor.getDelimiters();
+        final int start = d[0].length();
+
+        if (string.startsWith(d[0])) {
+            int close = string.indexOf(d[1], start);
+
+            if (close > start) {
+                String key = string.substring(start, close), args = null;
+
+                int colon = key.indexOf(':');
+                if (colon >= 0) {
+                    args = key.substring(colon + 1);
+                    key = key.substring(0, colon);
+                }
+
+                MessageExecutor e = MessageExecutor.fromKey(key);
+
+                if (e != null && e.acceptsArguments(args))
+                    return new MessageHeader(string, e, key, args, close + d[1].length());
+            }
+
+            for (MessageExecutor e : MessageExecutor.customRegexExecutors()) {
+                Matcher m = e.getPattern().matcher(string);
+                if (!m.find()) continue;
+
+                String[] split = m.group()
+                        .substring(start, m.group().length() - d[1].length())
+                        .split(":", 2);
+
+                return new MessageHeader(string, e, split[0],
+                        split.length == 2 ? split[1] : null, m.end());
+            }
+        }
+
+        MessageExecutor e = Beans.getBossbarPattern().matcher(string).find() ?
+                MessageExecutor.BOSSBAR : MessageExecutor.CHAT;
+
+        return new MessageHeader(string, e, null, null, 0);
+    }
+}
@@ -7,9 +7,13 @@ import lombok.Setter;
 import lombok.experimental.Accessors;
 import me.croabeast.beanslib.Beans;
 import me.croabeast.beanslib.applier.StringApplier;
+import me.croabeast.beanslib.applier.StringPipeline;
+import me.croabeast.beanslib.applier.TextBuffer;
 import me.croabeast.beanslib.key.PlayerKey;
+import me.croabeast.beanslib.key.PlayerSnapshot;
 import me.croabeast.beanslib.key.ValueReplacer;
 import me.croabeast.beanslib.map.Entry;
+import me.croabeast.beanslib.misc.RenderMetrics;
 import me.croabeast.beanslib.utility.ArrayUtils;
 import me.croabeast.beanslib.utility.TextUtils;
 import org.apache.commons.lang.StringUtils;
@@ -19,6 +23,7 @@ import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
 import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
 import java.util.function.Supplier;
 import java.util.function.UnaryOperator;
 import java.util.regex.Matcher;
@@ -91,6 +96,29 @@ public class MessageSender {
     @Getter(value = AccessLevel.NONE)
     private boolean trimFirstSpaces = false;
 
+    /**
+     * The scheduler that will spread the deliveries of this sender over several
+     * ticks. If null, messages are delivered immediately.
+     */
+    private DeliveryScheduler scheduler = null;
+
+    /**
+     * Formats the strings for a player, reading the functions and entries of this
+     * sender when applied, so it doesn't need to be rebuilt when they change.
+     */
+    @Getter(value = AccessLevel.NONE)
+    @Setter(value = AccessLevel.NONE)
+    private final StringPipeline<Player> formatter = StringApplier.<Player>pipeline()
+            .apply("functions", null, (p, s) -> {
+                for (PlayerFunction f : functions) s = f.apply(p, s);
+                return s;
+            })
+            .apply("player-keys", null, (p, s) -> PlayerKey.replaceKeys(p, s, sensitive))
+            .applyBuffer("entries", null, (p, b) -> {
+                for (KeyValue<?> k : entries) k.replace(b, sensitive);
+            })
+            .build();
+
     /**
      * Creates a new sender with a defined collection of targets and a player
      * that parses messages.
@@ -138,6 +166,7 @@ public class MessageSender {
         sensitive = sender.sensitive;
         logger = sender.logger;
         trimFirstSpaces = sender.trimFirstSpaces;
+        scheduler = sender.scheduler;
     }
 
     /**
@@ -348,38 +377,95 @@ public class MessageSender {
     }
 
     private String formatString(Player p, String string) {
-        final StringApplier applier = StringApplier.simplified(string);
-        final boolean c = isSensitive();
-
-        for (BiFunction<Player, String, String> f : functions)
-            applier.apply(s -> f.apply(p, s));
+        return formatter.apply(p, string);
+    }
 
-        applier.apply(s -> PlayerKey.replaceKeys(p, s, c));
-        for (KeyValue<?> k : entries)
-            applier.apply(s -> k.replace(s, c));
+    /**
+     * Applies the functions and entries of this sender to the header of a line, so the keys
+     * can be used in its arguments, like {@code [title:{time}]}. The line is only parsed
+     * again if the header changed.
+     */
+    private MessageHeader formatHeader(Player p, String line, String prefix, MessageHeader header) {
+        if (prefix == null) return header;
 
-        return applier.toString();
+        String formatted = formatString(p, prefix);
+        return formatted.equals(prefix) ? header :
+                MessageHeader.parse(formatted + line.substring(prefix.length()));
     }
 
     private boolean isFlag(MessageFlag flag) {
         return flags.isEmpty() || flags.contains(flag);
     }
 
-    private boolean sendWebhook(String s, boolean output) {
-        MessageExecutor key = MessageExecutor.identifyKey(s);
+    private static boolean dispatch(MessageExecutor e, Player target, Player parser, MessageHeader header, String payload) {
+        final long start = RenderMetrics.start();
+        boolean result = e.execute(target, parser, header, payload);
 
-        if (key == MessageExecutor.WEBHOOK &&
-                isFlag(MessageFlag.WEBHOOK)) key.execute(getParser(), s);
+        RenderMetrics.record(RenderMetrics.Stage.DISPATCH, start);
+        RenderMetrics.record(e.getFlag(), start);
+        return result;
+    }
+
+    private boolean deliver(Player target, BooleanSupplier delivery) {
+        if (scheduler == null) return delivery.getAsBoolean();
+
+        scheduler.schedule(target, delivery);
+        return true;
+    }
+
+    private boolean sendWebhook(MessageHeader header, String s, boolean output) {
+        header = formatHeader(getParser(), s, MessageHeader.findPrefix(s), header);
+        MessageExecutor key = header.getExecutor();
+
+        if (key == MessageExecutor.WEBHOOK && isFlag(MessageFlag.WEBHOOK))
+            key.execute(getParser(), getParser(), header, header.getPayload());
 
         Beans.rawLog(formatString(getParser(), s));
         return output;
     }
 
-    private boolean sendWebhooks(List<String> list, boolean output) {
-        list.forEach(s -> sendWebhook(s, true));
+    private boolean sendWebhooks(List<CompiledMessages.Line> lines, boolean output) {
+        lines.forEach(l -> sendWebhook(l.getHeader(), l.getLine(), true));
         return output;
     }
 
+    /**
+     * Captures a {@link PlayerSnapshot} of the parser and every player target of this
+     * sender, resolving the placeholders of the messages, so they can be rendered later
+     * outside the main thread. It must be called on the main thread.
+     *
+     * @param messages the messages that will be sent
+     * @return a reference of this object
+     *
+     * @throws IllegalStateException if it's not called on the main thread
+     */
+    public MessageSender captureSnapshots(List<String> messages) {
+        Set<Player> players = new HashSet<>();
+        if (parser != null) players.add(parser);
+
+        for (CommandSender t : targets)
+            if (t instanceof Player) players.add((Player) t);
+
+        for (Player player : players)
+            PlayerSnapshot.capture(player, messages);
+
+        return this;
+    }
+
+    /**
+     * Captures a {@link PlayerSnapshot} of the parser and every player target of this
+     * sender, resolving the placeholders of the messages, so they can be rendered later
+     * outside the main thread. It must be called on the main thread.
+     *
+     * @param messages the messages that will be sent
+     * @return a reference of this object
+     *
+     * @throws IllegalStateException if it's not called on the main thread
+     */
+    public MessageSender captureSnapshots(String... messages) {
+        return captureSnapshots(ArrayUtils.toList(messages));
+    }
+
     /**
      * Returns ff all chat messages will remove all the first space characters.
      * @return if chat messages will remove all the first spaces
@@ -400,15 +486,18 @@ public class MessageSender {
         StringApplier applier = StringApplier.simplified(string);
         applier.apply(s -> Beans.replacePrefixKey(s, false));
 
+        final String line = applier.toString();
+        final MessageHeader header = MessageHeader.parse(line);
+
         if (targets.isEmpty())
-            return sendWebhook(applier.toString(), true);
+            return sendWebhook(header, line, true);
 
         List<Player> targets = new ArrayList<>();
 
         for (CommandSender t : this.targets)
             if (t instanceof Player) targets.add((Player) t);
 
-        if (targets.isEmpty()) return sendWebhook(string, false);
+        if (targets.isEmpty()) return sendWebhook(header, line, false);
 
         Matcher m = Beans.getBlankPattern().matcher(string);
         boolean isMatching = m.find();
@@ -416,26 +505,40 @@ public class MessageSender {
 
         isMatching = isMatching && count > 0;
 
-        MessageExecutor ex = MessageExecutor.identifyKey(string);
-        if (!isFlag(ex.getFlag())) return false;
+        // the flag of a line with a header is checked for every target, after formatting it
+        final String prefix = MessageHeader.findPrefix(line);
+        if (prefix == null && !isFlag(header.getFlag())) return false;
 
+        final String payload = header.getPayload();
         boolean notSend = true;
 
         for (Player t : targets) {
             if (isMatching) {
-                for (int i = 0; i < count; i++) t.sendMessage("");
+                final int c = count;
+
+                deliver(t, () -> {
+                    for (int i = 0; i < c; i++) t.sendMessage("");
+                    return true;
+                });
                 continue;
             }
 
             Player parser = getParser() == null ? t : getParser();
 
-            StringApplier temp = StringApplier.simplified(applier);
-            temp.apply(s -> formatString(getParser(), s));
+            boolean b = deliver(t, () -> {
+                MessageHeader h = formatHeader(getParser(), line, prefix, header);
+
+                MessageExecutor ex = h.getExecutor();
+                if (!isFlag(ex.getFlag())) return false;
+
+                StringApplier temp = StringApplier.simplified(h == header ? payload : h.getPayload());
+                temp.apply(s -> formatString(getParser(), s));
 
-            if (shouldTrimSpaces() && ex == MessageExecutor.CHAT)
-                temp.apply(TextUtils.STRIP_FIRST_SPACES);
+                if (shouldTrimSpaces() && ex == MessageExecutor.CHAT)
+                    temp.apply(TextUtils.STRIP_FIRST_SPACES);
 
-            boolean b = ex.execute(t, parser, temp.toString());
+                return dispatch(ex, t, parser, h, temp.toString());
+            });
             if (notSend && b) notSend = false;
         }
 
@@ -463,55 +566,79 @@ public class MessageSender {
      */
     public boolean send(List<String> stringList) {
         if (stringList == null || stringList.isEmpty()) return false;
+        return send(CompiledMessages.compile(stringList));
+    }
 
-        final List<String> list = new ArrayList<>();
+    /**
+     * Sends a list of pre-compiled messages to the defined targets of the sender.
+     *
+     * <p> The same compiled messages can be sent many times and by different senders,
+     * avoiding the per-line pre-processing of {@link #send(List)}.
+     *
+     * <p> If the messages are empty or contains only one line and that line is
+     * blank/empty, it will not be sent.
+     *
+     * @param messages the compiled messages to send
+     * @return true if the messages were sent, false otherwise
+     */
+    public boolean send(CompiledMessages messages) {
+        if (messages == null) return false;
 
-        for (String s : stringList)
-            if (s != null) list.add(Beans.replacePrefixKey(s, false));
+        final List<CompiledMessages.Line> lines = messages.getLines();
+        if (lines.isEmpty()) return false;
 
-        if (list.size() == 1) {
-            final String temp = list.get(0);
-            return !StringUtils.isBlank(temp) && singleSend(temp);
+        if (lines.size() == 1) {
+            final CompiledMessages.Line line = lines.get(0);
+            return !line.isBlank() && singleSend(line.getLine());
         }
 
-        if (targets.isEmpty()) return sendWebhooks(list, true);
+        if (targets.isEmpty()) return sendWebhooks(lines, true);
 
         Set<Player> targets = new HashSet<>();
 
         for (CommandSender t : this.targets)
             if (t instanceof Player) targets.add((Player) t);
 
-        if (targets.isEmpty()) return sendWebhooks(list, false);
+        if (targets.isEmpty()) return sendWebhooks(lines, false);
 
         List<String> logList = new ArrayList<>();
 
-        for (String s : list) {
-            Matcher m = Beans.getBlankPattern().matcher(s);
+        for (CompiledMessages.Line line : lines) {
+            final String s = line.getLine(), payload = line.getPayload();
+            final MessageHeader header = line.getHeader();
 
-            boolean isMatching = m.find();
-            int count = isMatching ?
-                    Integer.parseInt(m.group(1)) : 0;
-
-            isMatching = isMatching && count > 0;
-
-            MessageExecutor e = MessageExecutor.identifyKey(s);
-            if (!isFlag(e.getFlag())) continue;
+            // the flag of a line with a header is checked for every target, after formatting it
+            final String prefix = MessageHeader.findPrefix(s);
+            if (prefix == null && !isFlag(line.getExecutor().getFlag())) continue;
 
             List<Boolean> executed = new ArrayList<>();
 
             for (Player t : targets) {
-                if (isMatching) {
-                    for (int i = 0; i < count; i++) t.sendMessage("");
+                if (line.isBlankSpace()) {
+                    final int c = line.getBlankCount();
+
+                    deliver(t, () -> {
+                        for (int i = 0; i < c; i++) t.sendMessage("");
+                        return true;
+                    });
                     continue;
                 }
 
                 Player temp = getParser() == null ? t : getParser();
-                String  p = formatString(temp, s);
 
-                executed.add(e.execute(t, temp,
-                        shouldTrimSpaces() && e == MessageExecutor.CHAT ?
-                        TextUtils.STRIP_FIRST_SPACES.apply(p) : p
-                ));
+                executed.add(deliver(t, () -> {
+                    MessageHeader h = formatHeader(temp, s, prefix, header);
+
+                    MessageExecutor e = h.getExecutor();
+                    if (!isFlag(e.getFlag())) return false;
+
+                    String p = formatString(temp, h == header ? payload : h.getPayload());
+
+                    return dispatch(e, t, temp, h,
+                            shouldTrimSpaces() && e == MessageExecutor.CHAT ?
+                            TextUtils.STRIP_FIRST_SPACES.apply(p) : p
+                    );
+                }));
             }
 
             if (executed.stream().noneMatch(b -> b)) continue;
@@ -578,8 +705,9 @@ public class MessageSender {
         private final String key;
         private final T value;
 
-        private String replace(String string, boolean sensitive) {
-            return ValueReplacer.of(key, String.valueOf(value), string, sensitive);
+        private void replace(TextBuffer buffer, boolean sensitive) {
+            if (StringUtils.isNotBlank(key) && !buffer.isBlank())
+                buffer.replaceAll(key, String.valueOf(value), !sensitive);
         }
     }
 
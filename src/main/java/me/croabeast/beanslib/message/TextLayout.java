@@ -0,0 +1,395 @@
+package me.croabeast.beanslib.message;
+
+import lombok.Getter;
+import me.croabeast.beanslib.character.CharHandler;
+import me.croabeast.beanslib.utility.Exceptions;
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A pixel-aware layout engine for colored chat text, using the lengths of {@link CharHandler}.
+ *
+ * <p> It can word-wrap a string to a width in pixels, align lines to the left, center or
+ * right, and lay out rows of cells in fixed-width columns. Strings must be already colored
+ * using the {@code §} character; color and format codes are carried to every wrapped line.
+ *
+ * <p> Every string is scanned once, storing the prefix sums of its widths, so wrapping and
+ * truncating are linear in the length of the input.
+ *
+ * <pre> {@code
+ * TextLayout layout = new TextLayout();
+ *
+ * List<String> lines = layout.wrap(Beans.colorize(longText), TextLayout.Align.CENTER);
+ * List<String> table = layout.table(rows, new int[] {20, 180, 60},
+ *         TextLayout.Align.RIGHT, TextLayout.Align.LEFT, TextLayout.Align.RIGHT);
+ * } </pre>
+ *
+ * @author CroaBeast
+ * @since 1.4
+ */
+@Getter
+public final class TextLayout {
+
+    /**
+     * The default width in pixels of the chat box.
+     */
+    public static final int CHAT_WIDTH = CenteredMessage.CHAT_BOX_LIMIT * 2;
+
+    private static final int BOLD_BIT = 1 << ('l' - 'k');
+
+    /**
+     * The width in pixels used to wrap and align the lines.
+     */
+    private int width;
+
+    /**
+     * Creates a new layout with a custom width.
+     *
+     * @param width the width in pixels, must be positive
+     */
+    public TextLayout(int width) {
+        setWidth(width);
+    }
+
+    /**
+     * Creates a new layout using the {@link #CHAT_WIDTH}.
+     */
+    public TextLayout() {
+        this(CHAT_WIDTH);
+    }
+
+    /**
+     * Sets the width in pixels used to wrap and align the lines.
+     *
+     * @param width the width in pixels, must be positive
+     * @return a reference of this object
+     */
+    public TextLayout setWidth(int width) {
+        this.width = Exceptions.validate(i -> i > 0, width);
+        return this;
+    }
+
+    /**
+     * Word-wraps a colored string to the width of this layout. Lines are split at spaces
+     * when possible and at any character otherwise. The new line characters of the string
+     * always start a new line.
+     *
+     * @param text a colored string
+     * @return the wrapped lines
+     */
+    @NotNull
+    public List<String> wrap(String text) {
+        List<String> lines = new ArrayList<>();
+        wrap(text, lines, null);
+        return lines;
+    }
+
+    /**
+     * Word-wraps a colored string to the width of this layout, and aligns every line.
+     *
+     * @param text a colored string
+     * @param align the alignment of the lines
+     *
+     * @return the wrapped and aligned lines
+     */
+    @NotNull
+    public List<String> wrap(String text, Align align) {
+        List<String> lines = new ArrayList<>();
+        List<Integer> widths = new ArrayList<>();
+
+        wrap(text, lines, widths);
+
+        for (int i = 0; i < lines.size(); i++)
+            lines.set(i, align(lines.get(i), widths.get(i), width, align));
+
+        return lines;
+    }
+
+    /**
+     * Aligns a single colored line in the width of this layout. The line is not wrapped.
+     *
+     * @param line a colored line
+     * @param align the alignment
+     *
+     * @return the aligned line
+     */
+    @NotNull
+    public String align(String line, Align align) {
+        if (StringUtils.isEmpty(line)) return line == null ? "" : line;
+        return align(line, CenteredMessage.measure(line), width, align);
+    }
+
+    /**
+     * Lays out rows of colored cells in fixed-width columns. Cells wider than their
+     * column are truncated, and missing or null cells are empty.
+     *
+     * @param rows the rows of cells
+     * @param widths the width in pixels of every column
+     * @param aligns the alignment of every column, left if missing
+     *
+     * @return a line for every row
+     */
+    @NotNull
+    public List<String> table(List<String[]> rows, int[] widths, Align... aligns) {
+        List<String> lines = new ArrayList<>(rows.size());
+        StringBuilder builder = new StringBuilder();
+
+        for (String[] row : rows) {
+            builder.setLength(0);
+
+            // the padding is made of whole spaces, so every column is padded up to its
+            // absolute position, carrying the pixels that could not be filled before
+            int x = 0, boundary = 0;
+
+            for (int c = 0; c < widths.length; c++) {
+                String cell = row != null && c < row.length && row[c] != null ? row[c] : "";
+                Align align = aligns != null && c < aligns.length ? aligns[c] : Align.LEFT;
+
+                int[] prefix = prefixSums(cell);
+                int end = cell.length();
+
+                if (prefix[end] > widths[c]) {
+                    while (end > 0 && prefix[end] > widths[c]) end--;
+                    // never cuts a color or format code in half
+                    while (end > 0 && prefix[end - 1] == prefix[end]) end--;
+
+                    cell = cell.substring(0, end);
+                }
+
+                final int start = boundary, width = prefix[end];
+                boundary += widths[c];
+
+                boolean last = c == widths.length - 1;
+
+                switch (align) {
+                    case RIGHT:
+                        x += pad(builder, boundary - width - x);
+                        builder.append(cell);
+                        break;
+
+                    case CENTER:
+                        x += pad(builder, start + (widths[c] - width) / 2 - x);
+                        builder.append(cell);
+                        break;
+
+                    case LEFT: default:
+                        x += pad(builder, start - x);
+                        builder.append(cell);
+                        break;
+                }
+
+                x += width;
+                if (!last) builder.append("§r");
+            }
+
+            lines.add(builder.toString());
+        }
+
+        return lines;
+    }
+
+    private static int pad(StringBuilder builder, int pixels) {
+        final int space = CharHandler.getLength(' ') + 1;
+        if (pixels < space) return 0;
+
+        int count = pixels / space;
+        for (int i = 0; i < count; i++) builder.append(' ');
+
+        return count * space;
+    }
+
+    private void wrap(String text, List<String> lines, List<Integer> widths) {
+        if (StringUtils.isEmpty(text)) {
+            lines.add("");
+            if (widths != null) widths.add(0);
+            return;
+        }
+
+        final int length = text.length();
+        final int[] prefix = new int[length + 1];
+
+        int colorIndex = -1, colorLength = 0, formats = 0;
+        int space = -1, spaceColor = -1, spaceColorLength = 0, spaceFormats = 0;
+
+        int start = 0;
+        String carry = "";
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+
+            if (c == '§' && i + 1 < length) {
+                char code = Character.toLowerCase(text.charAt(i + 1));
+                int skip = 1;
+
+                if (code == 'x' && i + 13 < length) {
+                    colorIndex = i;
+                    colorLength = 14;
+                    formats = 0;
+                    skip = 13;
+                }
+                else if ((code >= '0' && code <= '9') || (code >= 'a' && code <= 'f')) {
+                    colorIndex = i;
+                    colorLength = 2;
+                    formats = 0;
+                }
+                else if (code == 'r') {
+                    colorIndex = -1;
+                    formats = 0;
+                }
+                else if (code >= 'k' && code <= 'o')
+                    formats |= 1 << (code - 'k');
+
+                for (int j = 0; j <= skip; j++) prefix[i + j + 1] = prefix[i];
+                i += skip;
+                continue;
+            }
+
+            if (c == '\n') {
+                prefix[i + 1] = prefix[i];
+                add(lines, widths, carry + text.substring(start, i), prefix[i] - prefix[start]);
+
+                carry = state(text, colorIndex, colorLength, formats);
+                start = i + 1;
+                space = -1;
+                continue;
+            }
+
+            int w = CharHandler.getLength(c, (formats & BOLD_BIT) != 0) + 1;
+            prefix[i + 1] = prefix[i] + w;
+
+            while (prefix[i + 1] - prefix[start] > width && i > start) {
+                if (space > start) {
+                    add(lines, widths, carry + text.substring(start, space), prefix[space] - prefix[start]);
+
+                    carry = state(text, spaceColor, spaceColorLength, spaceFormats);
+                    start = space + 1;
+                } else {
+                    add(lines, widths, carry + text.substring(start, i), prefix[i] - prefix[start]);
+
+                    carry = state(text, colorIndex, colorLength, formats);
+                    start = i;
+                }
+                space = -1;
+            }
+
+            if (c == ' ') {
+                space = i;
+                spaceColor = colorIndex;
+                spaceColorLength = colorLength;
+                spaceFormats = formats;
+            }
+        }
+
+        // a trailing new line character starts an empty last line
+        add(lines, widths, carry + text.substring(start), prefix[length] - prefix[start]);
+    }
+
+    private static void add(List<String> lines, List<Integer> widths, String line, int width) {
+        lines.add(line);
+        if (widths != null) widths.add(width);
+    }
+
+    private static String state(String text, int colorIndex, int colorLength, int formats) {
+        if (colorIndex < 0 && formats == 0) return "";
+
+        StringBuilder builder = new StringBuilder(colorLength + 10);
+        if (colorIndex >= 0)
+            builder.append(text, colorIndex, colorIndex + colorLength);
+
+        for (int i = 0; i < 5; i++)
+            if ((formats & (1 << i)) != 0) builder.append('§').append((char) ('k' + i));
+
+        return builder.toString();
+    }
+
+    /**
+     * Returns the prefix sums of the widths of a colored string: the element {@code i}
+     * is the width in pixels of the first {@code i} characters.
+     *
+     * @param text a colored string
+     * @return the prefix sums, with a length of the string length plus one
+     */
+    @NotNull
+    public static int[] prefixSums(String text) {
+        final int length = text == null ? 0 : text.length();
+        final int[] prefix = new int[length + 1];
+
+        boolean bold = false;
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+
+            if (c == '§' && i + 1 < length) {
+                char code = Character.toLowerCase(text.charAt(i + 1));
+                int skip = 1;
+
+                if (code == 'x' && i + 13 < length) {
+                    skip = 13;
+                    bold = false;
+                }
+                else if (code == 'l') bold = true;
+                else if (code == 'r' || (code >= '0' && code <= '9') ||
+                        (code >= 'a' && code <= 'f')) bold = false;
+
+                for (int j = 0; j <= skip; j++) prefix[i + j + 1] = prefix[i];
+                i += skip;
+                continue;
+            }
+
+            prefix[i + 1] = prefix[i] + CharHandler.getLength(c, bold) + 1;
+        }
+
+        return prefix;
+    }
+
+    /**
+     * Creates a padding of the requested width in pixels, using spaces of the length of
+     * {@link CharHandler} plus the 1 pixel space between characters. Bold spaces are not
+     * wider, so the padding measures the same in any format, and is never wider than the
+     * requested width.
+     *
+     * @param pixels the width in pixels
+     * @return the padding
+     */
+    @NotNull
+    public static String padding(int pixels) {
+        StringBuilder builder = new StringBuilder();
+        pad(builder, pixels);
+        return builder.toString();
+    }
+
+    private static String align(String line, int lineWidth, int width, Align align) {
+        int free = width - lineWidth;
+        if (free <= 0 || align == null) return line;
+
+        switch (align) {
+            case CENTER:
+                return padding(free / 2) + line;
+            case RIGHT:
+                return padding(free) + line;
+            case LEFT: default:
+                return line;
+        }
+    }
+
+    /**
+     * The horizontal alignment of a line or a column.
+     */
+    public enum Align {
+        /**
+         * Aligned to the left, without padding before the text.
+         */
+        LEFT,
+        /**
+         * Centered, with half of the free space before the text.
+         */
+        CENTER,
+        /**
+         * Aligned to the right, with all the free space before the text.
+         */
+        RIGHT
+    }
+}
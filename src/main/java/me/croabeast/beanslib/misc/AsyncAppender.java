@@ -0,0 +1,281 @@
+package me.croabeast.beanslib.misc;
+
+import lombok.Getter;
+import me.croabeast.beanslib.utility.Exceptions;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * An appender that moves the formatting and output of log lines to a single
+ * consumer thread, using a bounded ring buffer between the callers and that thread.
+ *
+ * <p> Callers only copy the line into the buffer. The consumer drains the buffer in
+ * batches and hands every line to the defined output function.
+ *
+ * <p> When the buffer is full, the {@link Overflow} policy decides what happens with
+ * the new line.
+ *
+ * @param <T> the type of the buffered elements
+ *
+ * @author CroaBeast
+ * @since 1.4
+ */
+public final class AsyncAppender<T> {
+
+    private final Object[] buffer;
+    private final Consumer<T> output;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition(),
+            notFull = lock.newCondition(), drained = lock.newCondition();
+
+    private int head = 0, size = 0;
+    private boolean busy = false;
+
+    private volatile boolean closed = false;
+
+    /**
+     * The policy used when the buffer is full.
+     */
+    @Getter
+    private final Overflow overflow;
+
+    /**
+     * The maximum amount of elements drained on each batch.
+     */
+    @Getter
+    private final int batchSize;
+
+    /**
+     * The amount of elements that were discarded because the buffer was full.
+     */
+    @Getter
+    private volatile long dropped = 0;
+
+    private final Thread consumer;
+
+    /**
+     * Creates a new appender and starts its consumer thread.
+     *
+     * @param name the name of the consumer thread
+     * @param capacity the capacity of the ring buffer, must be positive
+     * @param overflow the policy used when the buffer is full
+     * @param output the function that outputs every drained element
+     *
+     * @throws NullPointerException if the overflow or the output are null
+     */
+    public AsyncAppender(String name, int capacity, @NotNull Overflow overflow, @NotNull Consumer<T> output) {
+        buffer = new Object[Exceptions.validate(i -> i > 0, capacity)];
+        batchSize = Math.min(capacity, 64);
+
+        this.overflow = Objects.requireNonNull(overflow);
+        this.output = Objects.requireNonNull(output);
+
+        consumer = new Thread(this::consume, name);
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    /**
+     * Appends an element to the buffer.
+     *
+     * <p> If the appender is closed, or the buffer is full and the policy is
+     * {@link Overflow#CALLER_RUNS}, the element is output in the caller's thread.
+     *
+     * @param element an element
+     */
+    public void append(T element) {
+        if (element == null) return;
+        boolean local = false;
+
+        lock.lock();
+        try {
+            if (size == buffer.length && !closed)
+                switch (overflow) {
+                    case BLOCK:
+                        while (size == buffer.length && !closed)
+                            notFull.awaitUninterruptibly();
+                        break;
+
+                    case DROP_OLDEST:
+                        buffer[head] = null;
+                        head = (head + 1) % buffer.length;
+                        size--;
+                        dropped++;
+                        break;
+
+                    case DROP_NEWEST:
+                        dropped++;
+                        return;
+
+                    case CALLER_RUNS: default:
+                        local = true;
+                        break;
+                }
+
+            if (closed) local = true;
+
+            if (!local) {
+                buffer[(head + size) % buffer.length] = element;
+                size++;
+                notEmpty.signal();
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+
+        if (local) output.accept(element);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void consume() {
+        Object[] batch = new Object[batchSize];
+
+        while (true) {
+            int count = 0;
+
+            lock.lock();
+            try {
+                busy = false;
+                if (size == 0) drained.signalAll();
+
+                while (size == 0 && !closed)
+                    notEmpty.awaitUninterruptibly();
+
+                if (size == 0) {
+                    drained.signalAll();
+                    return;
+                }
+
+                while (size > 0 && count < batch.length) {
+                    batch[count++] = buffer[head];
+                    buffer[head] = null;
+
+                    head = (head + 1) % buffer.length;
+                    size--;
+                }
+
+                busy = true;
+                notFull.signalAll();
+            }
+            finally {
+                lock.unlock();
+            }
+
+            for (int i = 0; i < count; i++) {
+                try {
+                    output.accept((T) batch[i]);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+                batch[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Returns the amount of elements waiting in the buffer.
+     *
+     * @return the amount of pending elements
+     */
+    public int getPending() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until all the buffered elements were output, or the timeout is reached.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     *
+     * @return true if the buffer was fully drained, false otherwise
+     */
+    public boolean flush(long timeout, TimeUnit unit) {
+        if (Thread.currentThread() == consumer) return false;
+        long nanos = unit.toNanos(timeout);
+
+        lock.lock();
+        try {
+            while ((size > 0 || busy) && consumer.isAlive()) {
+                if (nanos <= 0) return false;
+
+                try {
+                    nanos = drained.awaitNanos(nanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flushes the buffer and stops the consumer thread. Elements appended after
+     * closing the appender are output in the caller's thread.
+     *
+     * @param timeout the maximum time to wait for the flush
+     * @param unit the unit of the timeout
+     *
+     * @return true if the buffer was fully drained, false otherwise
+     */
+    public boolean close(long timeout, TimeUnit unit) {
+        boolean result = flush(timeout, unit);
+
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns if this appender was closed.
+     *
+     * @return true if closed, false otherwise
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * The policy that decides what happens with a new element when the buffer is full.
+     */
+    public enum Overflow {
+        /**
+         * The caller waits until the consumer frees a slot in the buffer.
+         */
+        BLOCK,
+        /**
+         * The oldest element in the buffer is discarded to store the new one.
+         */
+        DROP_OLDEST,
+        /**
+         * The new element is discarded.
+         */
+        DROP_NEWEST,
+        /**
+         * The new element is output synchronously in the caller's thread.
+         */
+        CALLER_RUNS
+    }
+}
@@ -4,7 +4,8 @@ import lombok.SneakyThrows;
 import me.croabeast.beanslib.Beans;
 import me.croabeast.beanslib.BeansLib;
 import me.croabeast.beanslib.message.CenteredMessage;
-import me.croabeast.beanslib.message.MessageExecutor;
+import me.croabeast.beanslib.message.MessageFlag;
+import me.croabeast.beanslib.message.MessageHeader;
 import me.croabeast.beanslib.message.MessageSender;
 import me.croabeast.beanslib.applier.StringApplier;
 import me.croabeast.beanslib.utility.ArrayUtils;
@@ -22,7 +23,7 @@ import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
-import java.util.regex.Matcher;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A class that provides methods for logging messages to the console or to a player.
@@ -41,6 +42,9 @@ public class BeansLogger {
     private RawLogger rawLogger, pluginLogger;
     private final BeansLib lib;
 
+    private volatile AsyncAppender<Runnable> appender = null;
+    private Runnable closeTask = null;
+
     /**
      * Creates a BeansLogger instance with a given BeansLib instance.
      *
@@ -83,6 +87,68 @@ public class BeansLogger {
         this(Beans.getLoaded());
     }
 
+    /**
+     * Enables the asynchronous console output of this logger.
+     *
+     * <p> Lines are stored in a bounded ring buffer and colorized and written by a
+     * single consumer thread, so logging does not add latency to the caller. The buffer
+     * is flushed automatically when the plugin of the lib is disabled.
+     *
+     * <p> If the async output was already enabled, the previous buffer is flushed first.
+     *
+     * @param capacity the capacity of the buffer
+     * @param overflow the policy to use when the buffer is full
+     *
+     * @return a reference of this object
+     */
+    public synchronized BeansLogger enableAsync(int capacity, AsyncAppender.Overflow overflow) {
+        disableAsync();
+
+        Plugin plugin = null;
+        try {
+            plugin = lib.getPlugin();
+        } catch (Exception ignored) {}
+
+        String name = (plugin != null ? plugin.getName() : "BeansLib") + "-Logger";
+        appender = new AsyncAppender<>(name, capacity, overflow, Runnable::run);
+
+        closeTask = this::disableAsync;
+        DisableHook.register(plugin, closeTask);
+        return this;
+    }
+
+    /**
+     * Flushes and disables the asynchronous console output of this logger, if enabled.
+     *
+     * @return a reference of this object
+     */
+    public synchronized BeansLogger disableAsync() {
+        if (appender == null) return this;
+
+        AsyncAppender<Runnable> old = appender;
+        appender = null;
+
+        old.close(5, TimeUnit.SECONDS);
+
+        try {
+            DisableHook.unregister(lib.getPlugin(), closeTask);
+        } catch (Exception ignored) {}
+
+        closeTask = null;
+        return this;
+    }
+
+    /**
+     * Waits until all the buffered lines are written, if the asynchronous console
+     * output is enabled.
+     *
+     * @return true if all the lines were written, false otherwise
+     */
+    public boolean flush() {
+        AsyncAppender<Runnable> appender = this.appender;
+        return appender == null || appender.flush(5, TimeUnit.SECONDS);
+    }
+
     private List<String> toLoggerStrings(Player player, boolean useLogger, String... strings) {
         if (ArrayUtils.isArrayEmpty(strings))
             return new ArrayList<>();
@@ -103,18 +169,12 @@ public class BeansLogger {
                     .apply(s -> s.replaceAll(split, resultSplit));
 
             String temp = applier.toString();
-            StringApplier result = StringApplier.simplified(temp);
-
-            MessageExecutor e = MessageExecutor.identifyKey(temp);
-
-            if (isLog && e != MessageExecutor.CHAT) {
-                Matcher m = e.getPattern().matcher(temp);
+            MessageHeader header = MessageHeader.parse(temp);
 
-                if (m.find())
-                    result.apply(s -> s.replace(m.group(), ""));
-            }
+            if (isLog && header.getFlag() != MessageFlag.CHAT)
+                temp = header.getPayload();
 
-            list.add(result.apply(c::center).toString());
+            list.add(c.center(temp));
         }
 
         return list;
@@ -145,8 +205,19 @@ public class BeansLogger {
                 .toString();
     }
 
+    private void output(RawLogger logger, String line) {
+        AsyncAppender<Runnable> appender = this.appender;
+
+        if (appender == null) {
+            logger.info(colorLogger(line));
+            return;
+        }
+
+        appender.append(() -> logger.info(colorLogger(line)));
+    }
+
     private void raw(String line) {
-        rawLogger.info(colorLogger(line));
+        output(rawLogger, line);
     }
 
     /**
@@ -160,7 +231,7 @@ public class BeansLogger {
     }
 
     private void log(String line) {
-        pluginLogger.info(colorLogger(line));
+        output(pluginLogger, line);
     }
 
     /**
@@ -289,8 +360,8 @@ public class BeansLogger {
 
         static final String KYORI_PREFIX = "net.kyori.adventure.text.";
 
-        private final Class<?> clazz;
-        private final Object logger;
+        private final Object logger, serializer;
+        private final Method info, deserialize;
 
         @SneakyThrows
         static Class<?> from(String name) {
@@ -299,39 +370,27 @@ public class BeansLogger {
 
         @SneakyThrows
         private PaperLogger(Plugin plugin) {
-            if (LibUtils.IS_PAPER) {
-                String name = plugin != null ? plugin.getName() : "";
+            if (!LibUtils.IS_PAPER)
+                throw new IllegalAccessException("Paper is not being used");
 
-                logger = from("logger.slf4j.ComponentLogger")
-                        .getMethod("logger", String.class).invoke(null, name);
+            String name = plugin != null ? plugin.getName() : "";
 
-                clazz = logger.getClass();
-                return;
-            }
+            logger = from("logger.slf4j.ComponentLogger")
+                    .getMethod("logger", String.class).invoke(null, name);
 
-            throw new IllegalAccessException("Paper is not being used");
+            info = logger.getClass().getMethod("info", from("Component"));
+            info.setAccessible(true);
+
+            Class<?> legacy = from("serializer.legacy.LegacyComponentSerializer");
+
+            serializer = legacy.getMethod("legacySection").invoke(null);
+            deserialize = legacy.getMethod("deserialize", String.class);
         }
 
         @Override
         public void info(String string) {
             try {
-                Class<?> legacy = from("serializer.legacy.LegacyComponentSerializer");
-
-                Method method = clazz.getMethod("info", from("Component"));
-                method.setAccessible(true);
-
-                Method section = legacy.getMethod("legacySection");
-                section.setAccessible(true);
-
-                method.invoke(logger,
-                        legacy
-                                .getMethod("deserialize", String.class)
-                                .invoke(
-                                        section.invoke(null),
-                                        string
-                                ));
-
-                section.setAccessible(false); method.setAccessible(false);
+                info.invoke(logger, deserialize.invoke(serializer, string));
             }
             catch (Exception e) {
                 e.printStackTrace();
@@ -3,7 +3,6 @@ package me.croabeast.beanslib.misc;
 import lombok.AccessLevel;
 import lombok.Setter;
 import lombok.experimental.Accessors;
-import lombok.var;
 import me.croabeast.beanslib.Beans;
 import me.croabeast.beanslib.map.Entry;
 import me.croabeast.beanslib.utility.ArrayUtils;
@@ -22,14 +21,27 @@ import org.jetbrains.annotations.Nullable;
 import java.util.*;
 import java.util.regex.Matcher;
 
+/**
+ * Displays an animated boss bar to a player, changing its message, color and style over
+ * its duration.
+ *
+ * <p> All the displayed bars of a plugin are animated by a single task that runs every
+ * tick. The changes of every bar are computed from integer tick indices when the bar is
+ * displayed, so a tick only compares integers and sets the values that changed.
+ *
+ * <p> Bars created from a configuration section only read and parse the section once,
+ * until the section is reloaded.
+ */
 @Accessors(chain = true)
 @Setter
 public final class BossbarBuilder {
 
     private static final Map<Player, Set<BossbarBuilder>> BOSSBAR_MAP = new HashMap<>();
 
-    private static final Set<Entry<BarColor, BarStyle>> DEFS =
-            Collections.singleton(Entry.of(BarColor.WHITE, BarStyle.SOLID));
+    private static final Map<Plugin, Animator> ANIMATORS = new HashMap<>();
+    private static final Map<ConfigurationSection, Compiled> COMPILED = new WeakHashMap<>();
+
+    private static final Entry<BarColor, BarStyle> DEF = Entry.of(BarColor.WHITE, BarStyle.SOLID);
 
     private static final Random RANDOM = new Random();
 
@@ -42,23 +54,24 @@ public final class BossbarBuilder {
     private final List<String> messages;
     private final List<Entry<BarColor, BarStyle>> formats;
 
+    private int messageInterval = 0, formatInterval = 0;
+
     @Setter(AccessLevel.NONE)
-    private int messageInterval = 0,
-            formatInterval = 0, time = 3 * 20;
+    private int time = 3 * 20;
 
     private boolean decrease = false;
     private boolean randomMessages = false;
     private boolean randomFormats = false;
 
     @Setter(AccessLevel.NONE)
-    private BukkitRunnable run = null;
+    private int tick = 0, nextMessage = 0, nextFormat = 0;
 
     public BossbarBuilder(Plugin plugin, Player player) {
         this.plugin = Objects.requireNonNull(plugin);
         this.player = Objects.requireNonNull(player);
 
-        messages = new LinkedList<>();
-        formats = new LinkedList<>();
+        messages = new ArrayList<>();
+        formats = new ArrayList<>();
     }
 
     private static List<String> fromSection(ConfigurationSection section, String path) {
@@ -68,21 +81,24 @@ public final class BossbarBuilder {
         return TextUtils.toList(section, s);
     }
 
-    private static <N extends Number> N round(N number) {
-        return Rounder.round(number);
-    }
-
     public BossbarBuilder(Plugin plugin, Player player, ConfigurationSection section) {
         this(plugin, player);
 
-        setMessageInterval(section.getInt("messages.interval"))
-                .setMessages(fromSection(section, "messages"))
-                .setFormatInterval(section.getInt("formats.interval"))
-                .setFormats(fromSection(section, "formats"))
-                .setDecrease(section.getBoolean("progress-decrease"))
-                .setTime(section.getInt("time", 3))
-                .setRandomMessages(section.getBoolean("messages.random"))
-                .setRandomFormats(section.getBoolean("formats.random"));
+        Compiled compiled;
+        synchronized (COMPILED) {
+            compiled = COMPILED.computeIfAbsent(section, Compiled::new);
+        }
+
+        messageInterval = compiled.messageInterval;
+        formatInterval = compiled.formatInterval;
+        time = compiled.time;
+
+        decrease = compiled.decrease;
+        randomMessages = compiled.randomMessages;
+        randomFormats = compiled.randomFormats;
+
+        setMessages(compiled.messages);
+        formats.addAll(compiled.formats);
     }
 
     public BossbarBuilder(Plugin plugin, Player player, String string) {
@@ -143,31 +159,10 @@ public final class BossbarBuilder {
     }
 
     public BossbarBuilder setMessages(List<String> list) {
-        int interval = messageInterval;
-
-        list.replaceAll(s -> {
-            if (StringUtils.isBlank(s)) return "";
-
-            return Beans.colorize(player,
-                    TextUtils.STRIP_FIRST_SPACES.apply(s));
-        });
-
-        if (interval == 0) {
-            messages.addAll(list);
-            return this;
-        }
+        for (String s : list)
+            messages.add(StringUtils.isBlank(s) ? "" :
+                    Beans.colorize(player, TextUtils.STRIP_FIRST_SPACES.apply(s)));
 
-        List<String> tempList = new ArrayList<>();
-        int temp = 0;
-
-        for (int i = 0; i <= time / interval; i++) {
-            tempList.add(list.get(temp));
-            temp++;
-
-            if (temp >= list.size()) temp = 0;
-        }
-
-        messages.addAll(tempList);
         return this;
     }
 
@@ -175,15 +170,8 @@ public final class BossbarBuilder {
         return setMessages(ArrayUtils.toList(list));
     }
 
-    public BossbarBuilder setMessageInterval(int interval) {
-        messageInterval = interval;
-        return setMessages(messages);
-    }
-
-    public BossbarBuilder setFormats(List<String> list) {
-        int interval = formatInterval;
-
-        List<Entry<BarColor, BarStyle>> temp = new LinkedList<>();
+    private static List<Entry<BarColor, BarStyle>> parseFormats(List<String> list) {
+        List<Entry<BarColor, BarStyle>> temp = new ArrayList<>();
 
         for (String s : list) {
             if (StringUtils.isBlank(s)) continue;
@@ -219,24 +207,11 @@ public final class BossbarBuilder {
             temp.add(Entry.of(c, t));
         }
 
-        if (interval == 0) {
-            formats.addAll(temp.isEmpty() ? DEFS : temp);
-            return this;
-        }
-
-        List<Entry<BarColor, BarStyle>> tempList = new LinkedList<>();
-        int count = 0;
-
-        for (int i = 0; i <= time / formatInterval; i++) {
-            var e = formats.get(count++);
-            tempList.add(Entry.of(e));
-
-            if (count >= formats.size()) count = 0;
-        }
-
-        formats.clear();
-        formats.addAll(tempList);
+        return temp;
+    }
 
+    public BossbarBuilder setFormats(List<String> list) {
+        formats.addAll(parseFormats(list));
         return this;
     }
 
@@ -244,107 +219,106 @@ public final class BossbarBuilder {
         return setFormats(ArrayUtils.toList(list));
     }
 
-    public BossbarBuilder setFormatInterval(int interval) {
-        formatInterval = interval;
-        if (formatInterval < 1) return this;
+    /**
+     * Returns the index of the frame shown at a tick. Frames change every interval if
+     * the interval is positive, or are spread evenly over the duration otherwise.
+     */
+    private static int frameAt(int tick, int size, int interval, int duration) {
+        if (size <= 1) return 0;
+        if (interval > 0) return (tick / interval) % size;
+
+        return (int) Math.min((long) tick * size / Math.max(duration, 1), size - 1);
+    }
 
-        List<Entry<BarColor, BarStyle>> temp = new LinkedList<>();
-        int count = 0;
+    /**
+     * Returns the first tick after a tick where the frame changes, or {@link Integer#MAX_VALUE}
+     * if the frame never changes again.
+     */
+    private static int nextFrame(int tick, int size, int interval, int duration) {
+        if (size <= 1) return Integer.MAX_VALUE;
+        if (interval > 0) return (tick / interval + 1) * interval;
 
-        for (int i = 0; i <= time / formatInterval; i++) {
-            var e = formats.get(count++);
-            temp.add(Entry.of(e));
+        int frame = frameAt(tick, size, interval, duration) + 1;
+        if (frame >= size) return Integer.MAX_VALUE;
 
-            if (count >= formats.size()) count = 0;
-        }
+        // smallest tick t where t * size / duration >= frame
+        return (int) (((long) frame * duration + size - 1) / size);
+    }
 
-        formats.clear();
-        formats.addAll(temp);
+    private void applyMessage() {
+        int size = messages.size();
+        int i = randomMessages ?
+                RANDOM.nextInt(size) :
+                frameAt(tick, size, messageInterval, time);
 
-        return this;
+        bar.setTitle(messages.get(i));
+        nextMessage = nextFrame(tick, size, messageInterval, time);
+    }
+
+    private void applyFormat() {
+        int size = formats.size();
+        int i = randomFormats ?
+                RANDOM.nextInt(size) :
+                frameAt(tick, size, formatInterval, time);
+
+        Entry<BarColor, BarStyle> format = formats.get(i);
+
+        if (format.getKey() != null) bar.setColor(format.getKey());
+        if (format.getValue() != null) bar.setStyle(format.getValue());
+
+        nextFormat = nextFrame(tick, size, formatInterval, time);
     }
 
     public boolean display() {
         try {
+            if (formats.isEmpty()) formats.add(DEF);
+
             Entry<BarColor, BarStyle> value = formats.get(0);
 
             bar = Bukkit.createBossBar(
                     messages.get(0),
-                    value.getKey(), value.getValue()
+                    value.getKey() != null ? value.getKey() : BarColor.WHITE,
+                    value.getValue() != null ? value.getValue() : BarStyle.SOLID
             );
             bar.setProgress(1.0D);
 
             bar.addPlayer(player);
             bar.setVisible(true);
 
-            Set<BossbarBuilder> builders = BOSSBAR_MAP.get(player);
-            if (builders == null) builders = new HashSet<>();
+            BOSSBAR_MAP.computeIfAbsent(player, p -> new HashSet<>()).add(this);
 
-            builders.add(this);
-            BOSSBAR_MAP.put(player, builders);
+            tick = 0;
+            nextMessage = nextFrame(0, messages.size(), messageInterval, time);
+            nextFormat = nextFrame(0, formats.size(), formatInterval, time);
 
-            return createAnimation();
+            synchronized (ANIMATORS) {
+                ANIMATORS.computeIfAbsent(plugin, Animator::new).add(this);
+            }
+            return true;
         } catch (Exception e) {
             return false;
         }
     }
 
-    private boolean createAnimation() {
+    /**
+     * Advances the animation one tick.
+     *
+     * @return false if the animation ended, true otherwise
+     */
+    private boolean tick() {
         if (bar == null) return false;
 
-        final double total = 1.0D;
-        double[] initial = {total};
-
-        int[] c1 = {1}, c2 = {1};
-        int mSize = messages.size(), fSize = formats.size();
-
-        run = new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (initial[0] <= 0.0) {
-                    unregister();
-                    cancel();
-                    return;
-                }
-
-                final double interval = Rounder.round(4, total / time);
-                initial[0] = Rounder.round(4, initial[0] - interval);
-
-                if (decrease)
-                    bar.setProgress(Math.max(initial[0], 0.0));
-
-                double msgInt = round((mSize - c1[0]) * (total / mSize)),
-                        forInt = round((fSize - c2[0]) * (total / fSize));
-
-                final double init = round(initial[0]);
-
-                if (mSize > 1 && (Objects.equals(init, msgInt) ||
-                        round(init - msgInt) <= 0.01) && c1[0] < mSize)
-                {
-                    int i = randomMessages ?
-                            RANDOM.nextInt(mSize) : c1[0];
-
-                    bar.setTitle(messages.get(i));
-                    if (!randomMessages) c1[0]++;
-                }
-
-                if (!(fSize > 1 && (Objects.equals(init, forInt) ||
-                        round(init - forInt) <= 0.01) && c2[0] < fSize))
-                    return;
-
-                int i = randomFormats ? RANDOM.nextInt(fSize) : c2[0];
-
-                BarColor c = formats.get(i).getKey();
-                BarStyle st = formats.get(i).getValue();
+        if (++tick >= time) {
+            unregister();
+            return false;
+        }
 
-                if (c != null) bar.setColor(c);
-                if (st != null) bar.setStyle(st);
+        if (decrease)
+            bar.setProgress(Math.max(1.0D - (double) tick / time, 0.0D));
 
-                if (!randomFormats) c2[0]++;
-            }
-        };
+        if (tick >= nextMessage) applyMessage();
+        if (tick >= nextFormat) applyFormat();
 
-        run.runTaskTimer(plugin, 0, 0);
         return true;
     }
 
@@ -352,14 +326,16 @@ public final class BossbarBuilder {
         if (bar == null) return true;
 
         try {
-            if (run != null && !run.isCancelled())
-                run.cancel();
-
             bar.removePlayer(player);
             bar.setVisible(false);
             bar = null;
 
-            BOSSBAR_MAP.remove(player);
+            Set<BossbarBuilder> builders = BOSSBAR_MAP.get(player);
+            if (builders != null) {
+                builders.remove(this);
+                if (builders.isEmpty()) BOSSBAR_MAP.remove(player);
+            }
+
             return true;
         } catch (Exception e) {
             return false;
@@ -369,4 +345,82 @@ public final class BossbarBuilder {
     public static Set<BossbarBuilder> getBuilders(Player player) {
         return BOSSBAR_MAP.getOrDefault(player, new HashSet<>());
     }
+
+    /**
+     * The shared task that animates all the displayed bars of a plugin.
+     */
+    private static class Animator extends BukkitRunnable {
+
+        private final Plugin plugin;
+        private final List<BossbarBuilder> bars = new ArrayList<>();
+
+        private Animator(Plugin plugin) {
+            this.plugin = plugin;
+            runTaskTimer(plugin, 1, 1);
+        }
+
+        private void add(BossbarBuilder builder) {
+            bars.add(builder);
+        }
+
+        @Override
+        public void run() {
+            BossbarBuilder[] array;
+
+            synchronized (ANIMATORS) {
+                array = bars.toArray(new BossbarBuilder[0]);
+            }
+
+            List<BossbarBuilder> ended = null;
+
+            for (BossbarBuilder builder : array) {
+                boolean running;
+                try {
+                    running = builder.tick();
+                } catch (Exception e) {
+                    builder.unregister();
+                    running = false;
+                }
+
+                if (running) continue;
+
+                if (ended == null) ended = new ArrayList<>();
+                ended.add(builder);
+            }
+
+            synchronized (ANIMATORS) {
+                if (ended != null) bars.removeAll(ended);
+                if (!bars.isEmpty()) return;
+
+                ANIMATORS.remove(plugin);
+                cancel();
+            }
+        }
+    }
+
+    /**
+     * The values of a bar read from a configuration section, before colorizing its
+     * messages for a player.
+     */
+    private static class Compiled {
+
+        private final List<String> messages;
+        private final List<Entry<BarColor, BarStyle>> formats;
+
+        private final int messageInterval, formatInterval, time;
+        private final boolean decrease, randomMessages, randomFormats;
+
+        private Compiled(ConfigurationSection section) {
+            messages = Collections.unmodifiableList(fromSection(section, "messages"));
+            formats = Collections.unmodifiableList(parseFormats(fromSection(section, "formats")));
+
+            messageInterval = section.getInt("messages.interval");
+            formatInterval = section.getInt("formats.interval");
+            time = section.getInt("time", 3) * 20;
+
+            decrease = section.getBoolean("progress-decrease");
+            randomMessages = section.getBoolean("messages.random");
+            randomFormats = section.getBoolean("formats.random");
+        }
+    }
 }
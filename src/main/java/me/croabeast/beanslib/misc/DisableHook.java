@@ -0,0 +1,88 @@
+package me.croabeast.beanslib.misc;
+
+import lombok.experimental.UtilityClass;
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.plugin.Plugin;
+
+import java.util.*;
+
+/**
+ * A utility class that runs tasks when a plugin is being disabled, so resources
+ * created by the lib (threads, queues, files) can be flushed and released without
+ * asking the plugin to do it manually in its {@code onDisable} method.
+ *
+ * @author CroaBeast
+ * @since 1.4
+ */
+@UtilityClass
+public class DisableHook {
+
+    private final Map<Plugin, List<Runnable>> TASKS = new HashMap<>();
+
+    /**
+     * Registers a task that will run when the plugin is disabled.
+     *
+     * <p> Tasks run in the same order they were registered. If the listener can not
+     * be registered (the plugin is not enabled yet, for example), the task will not
+     * run automatically and the caller is responsible for running it.
+     *
+     * @param plugin a plugin instance
+     * @param task the task to run
+     *
+     * @return true if the task was registered, false otherwise
+     */
+    public synchronized boolean register(Plugin plugin, Runnable task) {
+        Objects.requireNonNull(task);
+        if (plugin == null) return false;
+
+        List<Runnable> list = TASKS.get(plugin);
+        if (list != null) return list.add(task);
+
+        try {
+            Bukkit.getPluginManager().registerEvents(new Listener() {
+                @EventHandler(priority = EventPriority.MONITOR)
+                private void onDisable(PluginDisableEvent event) {
+                    if (event.getPlugin() == plugin) run(plugin);
+                }
+            }, plugin);
+        } catch (Exception e) {
+            return false;
+        }
+
+        TASKS.put(plugin, list = new ArrayList<>());
+        return list.add(task);
+    }
+
+    /**
+     * Removes a task that was registered for a plugin.
+     *
+     * @param plugin a plugin instance
+     * @param task the task to remove
+     *
+     * @return true if the task was removed, false otherwise
+     */
+    public synchronized boolean unregister(Plugin plugin, Runnable task) {
+        List<Runnable> list = TASKS.get(plugin);
+        return list != null && list.remove(task);
+    }
+
+    private void run(Plugin plugin) {
+        List<Runnable> list;
+
+        synchronized (DisableHook.class) {
+            list = TASKS.remove(plugin);
+        }
+        if (list == null) return;
+
+        for (Runnable task : list)
+            try {
+                task.run();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+    }
+}
@@ -0,0 +1,307 @@
+package me.croabeast.beanslib.misc;
+
+import lombok.Getter;
+import lombok.experimental.UtilityClass;
+import me.croabeast.beanslib.message.MessageFlag;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lightweight registry of counters and latency histograms for every stage of the
+ * message render pipeline and every {@link MessageFlag}.
+ *
+ * <p> Metrics are disabled by default, and while disabled every call only reads a
+ * single volatile flag. Recording uses striped {@link LongAdder} counters, so threads
+ * rendering at the same time barely contend.
+ *
+ * <pre> {@code
+ * RenderMetrics.setEnabled(true);
+ * // ... after some sends
+ * RenderMetrics.snapshot().toLines().forEach(sender::sendMessage);
+ * } </pre>
+ *
+ * @author CroaBeast
+ * @since 1.4
+ */
+@UtilityClass
+public class RenderMetrics {
+
+    private volatile boolean enabled = false;
+
+    private final Histogram[] STAGES, FLAGS;
+
+    static {
+        STAGES = new Histogram[Stage.values().length];
+        for (int i = 0; i < STAGES.length; i++) STAGES[i] = new Histogram();
+
+        FLAGS = new Histogram[MessageFlag.values().length];
+        for (int i = 0; i < FLAGS.length; i++) FLAGS[i] = new Histogram();
+    }
+
+    /**
+     * Returns if metrics are being recorded.
+     *
+     * @return true if enabled, false otherwise
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables the recording of metrics.
+     *
+     * @param enabled if metrics should be recorded
+     */
+    public void setEnabled(boolean enabled) {
+        RenderMetrics.enabled = enabled;
+    }
+
+    /**
+     * Returns the start time of a measurement, or 0 if metrics are disabled.
+     *
+     * <pre> {@code
+     * long start = RenderMetrics.start();
+     * // ... stage work
+     * RenderMetrics.record(Stage.COLORIZE, start);
+     * } </pre>
+     *
+     * @return the current nano time, or 0 if disabled
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Records the time elapsed since the start of a measurement for a stage.
+     * Does nothing if the start is 0.
+     *
+     * @param stage a pipeline stage
+     * @param start the value returned by {@link #start()}
+     */
+    public void record(Stage stage, long start) {
+        if (start != 0L) STAGES[stage.ordinal()].record(System.nanoTime() - start);
+    }
+
+    /**
+     * Records the time elapsed since the start of a measurement for a flag.
+     * Does nothing if the start is 0.
+     *
+     * @param flag a message flag
+     * @param start the value returned by {@link #start()}
+     */
+    public void record(MessageFlag flag, long start) {
+        if (start != 0L) FLAGS[flag.ordinal()].record(System.nanoTime() - start);
+    }
+
+    /**
+     * Resets all the recorded metrics.
+     */
+    public void reset() {
+        for (Histogram h : STAGES) h.reset();
+        for (Histogram h : FLAGS) h.reset();
+    }
+
+    /**
+     * Creates an immutable snapshot of the current metrics.
+     *
+     * @return the snapshot
+     */
+    public Snapshot snapshot() {
+        Map<String, Summary> stages = new LinkedHashMap<>(), flags = new LinkedHashMap<>();
+
+        for (Stage s : Stage.values())
+            stages.put(s.name(), STAGES[s.ordinal()].summarize());
+
+        for (MessageFlag f : MessageFlag.values())
+            flags.put(f.name(), FLAGS[f.ordinal()].summarize());
+
+        return new Snapshot(
+                Collections.unmodifiableMap(stages),
+                Collections.unmodifiableMap(flags)
+        );
+    }
+
+    /**
+     * The stages of the render pipeline that are measured.
+     */
+    public enum Stage {
+        /**
+         * Parsing of the lib keys and PlaceholderAPI placeholders.
+         */
+        PLACEHOLDERS,
+        /**
+         * Colorizing of the string using NeoPrismaticAPI.
+         */
+        COLORIZE,
+        /**
+         * Centering of chat messages.
+         */
+        CENTER,
+        /**
+         * Building of the chat components.
+         */
+        BUILD,
+        /**
+         * Execution of a message executor for a single target.
+         */
+        DISPATCH
+    }
+
+    /**
+     * A histogram of latencies using logarithmic buckets with 8 linear sub-buckets
+     * each, so every value is recorded with a relative error below 12.5%.
+     */
+    static class Histogram {
+
+        private static final int SUB_BITS = 3, SUB_COUNT = 1 << SUB_BITS;
+        private static final int MAX_EXPONENT = 40;
+
+        private final LongAdder[] buckets =
+                new LongAdder[(MAX_EXPONENT - SUB_BITS + 2) * SUB_COUNT];
+
+        private final LongAdder count = new LongAdder(), sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        Histogram() {
+            for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+        }
+
+        static int index(long value) {
+            if (value < SUB_COUNT) return (int) Math.max(value, 0);
+
+            int exp = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_EXPONENT);
+            int sub = (int) ((value >>> (exp - SUB_BITS)) & (SUB_COUNT - 1));
+
+            return (exp - SUB_BITS + 1) * SUB_COUNT + sub;
+        }
+
+        static long upperBound(int index) {
+            if (index < SUB_COUNT) return index;
+
+            int exp = index / SUB_COUNT + SUB_BITS - 1;
+            long sub = index % SUB_COUNT;
+
+            return ((SUB_COUNT + sub + 1) << (exp - SUB_BITS)) - 1;
+        }
+
+        void record(long nanos) {
+            buckets[index(nanos)].increment();
+            count.increment();
+            sum.add(nanos);
+            max.accumulate(nanos);
+        }
+
+        void reset() {
+            for (LongAdder b : buckets) b.reset();
+            count.reset();
+            sum.reset();
+            max.reset();
+        }
+
+        Summary summarize() {
+            long[] counts = new long[buckets.length];
+            long total = 0;
+
+            for (int i = 0; i < counts.length; i++)
+                total += counts[i] = buckets[i].sum();
+
+            return new Summary(total, sum.sum(), max.get(),
+                    percentile(counts, total, 0.50),
+                    percentile(counts, total, 0.90),
+                    percentile(counts, total, 0.99)
+            );
+        }
+
+        private static long percentile(long[] counts, long total, double p) {
+            if (total == 0) return 0;
+
+            long target = (long) Math.ceil(total * p), seen = 0;
+
+            for (int i = 0; i < counts.length; i++)
+                if ((seen += counts[i]) >= target) return upperBound(i);
+
+            return upperBound(counts.length - 1);
+        }
+    }
+
+    /**
+     * The summary of a single histogram. All the times are in nanoseconds.
+     */
+    @Getter
+    public static class Summary {
+
+        private final long count, total, max, p50, p90, p99;
+
+        Summary(long count, long total, long max, long p50, long p90, long p99) {
+            this.count = count;
+            this.total = total;
+            this.max = max;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+        }
+
+        /**
+         * Returns the mean time in nanoseconds.
+         *
+         * @return the mean time
+         */
+        public long getMean() {
+            return count == 0 ? 0 : total / count;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count + ", mean=" + (getMean() / 1000) +
+                    "us, p50=" + (p50 / 1000) + "us, p90=" + (p90 / 1000) +
+                    "us, p99=" + (p99 / 1000) + "us, max=" + (max / 1000) + "us";
+        }
+    }
+
+    /**
+     * An immutable copy of all the metrics at a given moment.
+     */
+    @Getter
+    public static class Snapshot {
+
+        /**
+         * The summaries of every pipeline stage, by stage name.
+         */
+        private final Map<String, Summary> stages;
+        /**
+         * The summaries of every message flag, by flag name.
+         */
+        private final Map<String, Summary> flags;
+
+        Snapshot(Map<String, Summary> stages, Map<String, Summary> flags) {
+            this.stages = stages;
+            this.flags = flags;
+        }
+
+        /**
+         * Converts this snapshot to a list of readable lines, ignoring the stages
+         * and flags without records. Useful to dump the metrics from a command.
+         *
+         * @return the list of lines
+         */
+        public List<String> toLines() {
+            List<String> lines = new ArrayList<>();
+
+            stages.forEach((k, v) -> {
+                if (v.getCount() > 0) lines.add("[stage] " + k + ": " + v);
+            });
+            flags.forEach((k, v) -> {
+                if (v.getCount() > 0) lines.add("[flag] " + k + ": " + v);
+            });
+
+            return lines;
+        }
+
+        @Override
+        public String toString() {
+            return "RenderMetrics{stages=" + stages + ", flags=" + flags + '}';
+        }
+    }
+}
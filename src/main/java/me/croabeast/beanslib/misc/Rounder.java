@@ -1,79 +1,121 @@
 package me.croabeast.beanslib.misc;
 
-import org.apache.commons.lang.StringUtils;
-
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
-import java.util.Locale;
+import lombok.experimental.UtilityClass;
+import org.jetbrains.annotations.NotNull;
 
 /**
- * The {@code Rounder} object rounds a number using a mutable
- * amount of fixed decimals.
+ * The {@code Rounder} class rounds numbers using a fixed amount of decimals, and
+ * formats them in plain or compact notation.
+ *
+ * <p> Rounding is arithmetic, half to even, and never creates formats or strings.
+ * The formatting methods are thread-safe and can write into a caller-supplied
+ * {@link StringBuilder}, so numbers can be formatted every tick without allocating.
+ *
+ * <p> The primitive methods are named {@code roundTo} and take the value before the
+ * amount of decimals, so they never collide with {@link #round(int, Number)}.
  *
- * @param <T> the number class type
+ * <pre> {@code
+ * Rounder.roundTo(12.3456, 2); // 12.35
+ * Rounder.format(builder, 1.50, 2); // appends "1.5"
+ * Rounder.formatCompact(builder, 1234567, 1); // appends "1.2M"
+ * } </pre>
  *
  * @author CroaBeast
  * @since 1.4
  */
-public final class Rounder<T extends Number> {
+@UtilityClass
+public class Rounder {
+
+    /**
+     * The default amount of decimals.
+     */
+    final int DEFAULT_DECIMALS = 2;
 
-    private final T number;
-    private final Class<T> clazz;
+    /**
+     * The suffixes of the compact notation, for every power of a thousand.
+     */
+    final char[] SUFFIXES = {'k', 'M', 'B', 'T'};
 
-    private int decimalAmount = 2;
+    final long[] POWERS = new long[16];
+
+    /**
+     * Numbers whose scaled value is higher than this are already as precise as a double can be.
+     */
+    final double PRECISION_LIMIT = 1e15;
 
-    private Rounder(T t) {
-        number = t;
-        clazz = (Class<T>) t.getClass();
+    static {
+        POWERS[0] = 1;
+        for (int i = 1; i < POWERS.length; i++) POWERS[i] = POWERS[i - 1] * 10;
     }
 
-    private Rounder<T> setAmount(int i) {
-        this.decimalAmount = i;
-        return this;
+    private int clamp(int decimals) {
+        return Math.min(Math.max(decimals, 0), POWERS.length - 1);
     }
 
-    private String getRoundString() {
-        String s = "#." + StringUtils.repeat("#", decimalAmount);
-        if (decimalAmount == 0) s = "#";
+    /**
+     * Rounds a number to another number with a fixed amount of decimals.
+     *
+     * @param value a number
+     * @param decimals a fixed amount of decimals, from 0 to 15
+     *
+     * @return the rounded number
+     */
+    public double roundTo(double value, int decimals) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) return value;
+
+        long scale = POWERS[clamp(decimals)];
+        double scaled = value * scale;
 
-        DecimalFormatSymbols d = DecimalFormatSymbols.getInstance(Locale.ENGLISH);
-        return new DecimalFormat(s, d).format(number);
+        return Math.abs(scaled) >= PRECISION_LIMIT ? value : Math.rint(scaled) / scale;
     }
 
-    private T result() {
-        String round = getRoundString();
-        Number n = null;
-
-        if (clazz == Double.class)
-            n = Double.parseDouble(round);
-        if (clazz == Long.class)
-            n = Long.parseLong(round);
-        if (clazz == Float.class)
-            n = Float.parseFloat(round);
-        if (clazz == Byte.class)
-            n = Byte.parseByte(round);
-        if (clazz == Integer.class)
-            n = Integer.parseInt(round);
-        if (clazz == Short.class)
-            n = Short.parseShort(round);
-
-        return clazz.cast(n);
+    /**
+     * Rounds a number to another number with a fixed amount of decimals.
+     *
+     * @param value a number
+     * @param decimals a fixed amount of decimals, from 0 to 15
+     *
+     * @return the rounded number
+     */
+    public float roundTo(float value, int decimals) {
+        return (float) roundTo((double) value, decimals);
     }
 
     /**
      * Rounds a number to a two-decimal number.
      *
+     * @param value a number
+     * @return the rounded number
+     */
+    public double roundTo(double value) {
+        return roundTo(value, DEFAULT_DECIMALS);
+    }
+
+    /**
+     * Rounds a number to a two-decimal number.
+     *
+     * @param value a number
+     * @return the rounded number
+     */
+    public float roundTo(float value) {
+        return roundTo(value, DEFAULT_DECIMALS);
+    }
+
+    /**
+     * Rounds a number to a two-decimal number. Integral numbers are returned as is.
+     *
      * @param t a number
      * @return the rounded number
      *
      * @param <T> a number class
      */
-    public static <T extends Number> T round(T t) {
-        return new Rounder<>(t).result();
+    public <T extends Number> T round(T t) {
+        return round(DEFAULT_DECIMALS, t);
     }
 
     /**
-     * Rounds a number to another number with a fixed amount of decimals.
+     * Rounds a number to another number with a fixed amount of decimals. Integral
+     * numbers are returned as is.
      *
      * @param decimalAmount a fixed amount of decimals
      * @param t a number
@@ -81,7 +123,116 @@ public final class Rounder<T extends Number> {
      *
      * @param <T> a number class
      */
-    public static <T extends Number> T round(int decimalAmount, T t) {
-        return new Rounder<>(t).setAmount(decimalAmount).result();
+    @SuppressWarnings("unchecked")
+    public <T extends Number> T round(int decimalAmount, T t) {
+        if (t instanceof Double)
+            return (T) Double.valueOf(roundTo(t.doubleValue(), decimalAmount));
+
+        if (t instanceof Float)
+            return (T) Float.valueOf(roundTo(t.floatValue(), decimalAmount));
+
+        return t;
+    }
+
+    /**
+     * Appends a number rounded to a fixed amount of decimals, without trailing zeros
+     * and without grouping, like the {@code #.##} decimal pattern.
+     *
+     * @param builder the builder to append the number to
+     * @param value a number
+     * @param decimals the maximum amount of decimals, from 0 to 15
+     *
+     * @return the same builder
+     */
+    @NotNull
+    public StringBuilder format(@NotNull StringBuilder builder, double value, int decimals) {
+        if (Double.isNaN(value) || Double.isInfinite(value))
+            return builder.append(value);
+
+        decimals = clamp(decimals);
+
+        long scale = POWERS[decimals];
+        double scaled = Math.abs(value) * scale;
+
+        if (scaled >= PRECISION_LIMIT)
+            return Math.abs(value) < Long.MAX_VALUE ?
+                    builder.append(Math.round(value)) :
+                    builder.append(value);
+
+        long digits = (long) Math.rint(scaled);
+        if (digits == 0) return builder.append('0');
+
+        if (value < 0) builder.append('-');
+        builder.append(digits / scale);
+
+        long fraction = digits % scale;
+        if (fraction == 0) return builder;
+
+        builder.append('.');
+        for (int i = decimals - 1; i >= 0; i--)
+            builder.append((char) ('0' + fraction / POWERS[i] % 10));
+
+        int end = builder.length();
+        while (builder.charAt(end - 1) == '0') end--;
+
+        builder.setLength(end);
+        return builder;
+    }
+
+    /**
+     * Formats a number rounded to a fixed amount of decimals, without trailing zeros
+     * and without grouping, like the {@code #.##} decimal pattern.
+     *
+     * @param value a number
+     * @param decimals the maximum amount of decimals, from 0 to 15
+     *
+     * @return the formatted number
+     */
+    @NotNull
+    public String format(double value, int decimals) {
+        return format(new StringBuilder(24), value, decimals).toString();
+    }
+
+    /**
+     * Appends a number in compact notation, using the {@code k}, {@code M}, {@code B}
+     * and {@code T} suffixes for thousands, millions, billions and trillions.
+     *
+     * <p> Numbers lower than a thousand are appended like {@link #format(StringBuilder, double, int)}.
+     *
+     * @param builder the builder to append the number to
+     * @param value a number
+     * @param decimals the maximum amount of decimals, from 0 to 15
+     *
+     * @return the same builder
+     */
+    @NotNull
+    public StringBuilder formatCompact(@NotNull StringBuilder builder, double value, int decimals) {
+        if (Double.isNaN(value) || Double.isInfinite(value))
+            return builder.append(value);
+
+        int suffix = -1;
+
+        // rounding first, so 999,950 is "1M" and not "1000k"
+        while (suffix < SUFFIXES.length - 1 && Math.abs(roundTo(value, decimals)) >= 1000) {
+            value /= 1000;
+            suffix++;
+        }
+
+        format(builder, value, decimals);
+        return suffix < 0 ? builder : builder.append(SUFFIXES[suffix]);
+    }
+
+    /**
+     * Formats a number in compact notation, using the {@code k}, {@code M}, {@code B}
+     * and {@code T} suffixes for thousands, millions, billions and trillions.
+     *
+     * @param value a number
+     * @param decimals the maximum amount of decimals, from 0 to 15
+     *
+     * @return the formatted number
+     */
+    @NotNull
+    public String formatCompact(double value, int decimals) {
+        return formatCompact(new StringBuilder(16), value, decimals).toString();
     }
 }
@@ -5,8 +5,7 @@ import net.md_5.bungee.api.ChatMessageType;
 import net.md_5.bungee.api.chat.TextComponent;
 import org.bukkit.entity.Player;
 
-import java.lang.reflect.Method;
-import java.util.function.Function;
+import java.lang.invoke.MethodType;
 
 /**
  * A utility class that handles sending action bar messages to players.
@@ -17,17 +16,16 @@ public class ActionBarHandler {
 
     final Class<?> LEGACY_CHAT_CLASS = ReflectionUtils.from(null, "PacketPlayOutChat");
 
-    final Function<String, Object> STRING_FUNCTION = (s) -> {
-        Class<?> legacyClass = ReflectionUtils.from(null, "IChatBaseComponent");
-        legacyClass = legacyClass.getDeclaredClasses()[0];
-
-        try {
-            Method method = legacyClass.getMethod("a", String.class);
-            return method.invoke(null, "{\"text\":\"" + s + "\"}");
-        } catch (Exception e) {
-            return null;
-        }
-    };
+    /**
+     * Creates the legacy chat packet: {@code (Object, byte) -> Object}.
+     */
+    final ReflectionUtils.CachedHandle CHAT_PACKET = new ReflectionUtils.CachedHandle(
+            "PacketPlayOutChat(IChatBaseComponent, byte)", () ->
+            ReflectionUtils.LOOKUP.findConstructor(
+                    LEGACY_CHAT_CLASS,
+                    MethodType.methodType(void.class, ReflectionUtils.BASE_COMP_CLASS, byte.class)
+            ).asType(MethodType.methodType(Object.class, Object.class, byte.class))
+    );
 
     /**
      * Sends an action bar message to a player.
@@ -40,17 +38,13 @@ public class ActionBarHandler {
     public boolean send(Player player, String string) {
         if (ReflectionUtils.VERSION < 11.0) {
             try {
-                Method method = player.getClass().getMethod("getHandle");
-                Object handle = method.invoke(player);
-
-                method = handle.getClass().getMethod("playerConnection");
-                handle = method.invoke(handle);
+                Object component = ReflectionUtils.COMPONENT_SERIALIZER.apply(string);
+                Object packet = (Object) CHAT_PACKET.get().invokeExact(component, (byte) 2);
 
-                method = handle.getClass().getMethod("sendPacket", LEGACY_CHAT_CLASS);
-                method.invoke(handle, STRING_FUNCTION.apply(string));
+                ReflectionUtils.sendPacket(player, packet);
                 return true;
             }
-            catch (Exception e) {
+            catch (Throwable e) {
                 e.printStackTrace();
                 return false;
             }
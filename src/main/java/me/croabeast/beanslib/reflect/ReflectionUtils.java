@@ -3,8 +3,12 @@ package me.croabeast.beanslib.reflect;
 import lombok.experimental.UtilityClass;
 import lombok.var;
 import me.croabeast.beanslib.utility.LibUtils;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.function.Function;
 
 @UtilityClass
@@ -13,9 +17,14 @@ class ReflectionUtils {
     final double VERSION = LibUtils.MAIN_VERSION;
     final boolean IS_LEGACY = VERSION < 17.0;
 
+    final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
     final Class<?> BASE_COMP_CLASS = from(
             IS_LEGACY ? null : "network.chat.", "IChatBaseComponent");
 
+    final Class<?> PACKET_CLASS = from(
+            IS_LEGACY ? null : "network.protocol.", "Packet");
+
     Class<?> from(String prefix, String name) {
         var builder = new StringBuilder("net.minecraft.");
 
@@ -33,36 +42,109 @@ class ReflectionUtils {
         }
     }
 
+    /**
+     * Sends a packet to a player: {@code (Player, Object) -> void}.
+     */
+    final CachedHandle SEND_PACKET = new CachedHandle("sendPacket", () -> {
+        var craft = Class.forName(Bukkit.getServer().getClass()
+                .getPackage().getName() + ".entity.CraftPlayer");
+
+        var handle = LOOKUP.unreflect(craft.getMethod("getHandle"));
+        var entity = handle.type().returnType();
+
+        var co = VERSION >= 20.0 ? "c" : "b";
+        var connection = LOOKUP.unreflectGetter(
+                entity.getField(IS_LEGACY ? "playerConnection" : co));
+
+        connection = connection.asType(connection.type().changeParameterType(0, entity));
+        var type = connection.type().returnType();
+
+        var send = LOOKUP.unreflect(type.getMethod(
+                VERSION < 18.0 ? "sendPacket" : "a", PACKET_CLASS));
+
+        send = send.asType(send.type().changeParameterType(0, type));
+
+        send = MethodHandles.filterArguments(send, 0,
+                MethodHandles.filterReturnValue(handle, connection));
+
+        return send.asType(MethodType.methodType(void.class, Player.class, Object.class));
+    });
+
+    /**
+     * Parses a JSON string to a chat component: {@code (String) -> Object}.
+     */
+    final CachedHandle SERIALIZER = new CachedHandle("ChatSerializer#a", () -> {
+        var serializer = from(
+                IS_LEGACY ? null : ("network.chat.IChatBaseComponent$"),
+                "ChatSerializer");
+
+        return LOOKUP.unreflect(serializer.getDeclaredMethod("a", String.class))
+                .asType(MethodType.methodType(Object.class, String.class));
+    });
+
+    String toJson(String message) {
+        var builder = new StringBuilder(message.length() + 12).append("{\"text\":\"");
+
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (c == '"' || c == '\\') builder.append('\\');
+            builder.append(c);
+        }
+
+        return builder.append("\"}").toString();
+    }
+
     final Function<String, Object> COMPONENT_SERIALIZER = message -> {
         try {
-            var serializer = from(
-                    IS_LEGACY ? null : ("network.chat.IChatBaseComponent$"),
-                    "ChatSerializer");
-
-            return serializer.getDeclaredMethod("a", String.class)
-                    .invoke(null, "{\"text\":\"" + message + "\"}");
+            return (Object) SERIALIZER.get().invokeExact(toJson(message));
         }
-        catch (Exception e) {
+        catch (Throwable e) {
             e.printStackTrace();
             return null;
         }
     };
 
-    void sendPacket(Player p, Object o) throws Exception {
-        var clazz = from(
-                IS_LEGACY ? null : "network.protocol.",
-                "Packet"
-        );
+    void sendPacket(Player p, Object o) throws Throwable {
+        SEND_PACKET.get().invokeExact(p, o);
+    }
+
+    interface HandleResolver {
+        MethodHandle resolve() throws Throwable;
+    }
+
+    /**
+     * A method handle resolved only once. If the resolution failed, every use of the
+     * handle throws an {@link IllegalStateException} with the original cause.
+     */
+    static final class CachedHandle {
 
-        var handler = p.getClass().getMethod("getHandle").invoke(p);
-        var co = VERSION >= 20.0 ? "c" : "b";
+        private final String name;
+        private final MethodHandle handle;
+        private final Throwable cause;
 
-        var connect = handler.getClass()
-                .getField(IS_LEGACY ? "playerConnection" : co)
-                .get(handler);
+        CachedHandle(String name, HandleResolver resolver) {
+            this.name = name;
 
-        connect.getClass()
-                .getMethod(VERSION < 18.0 ? "sendPacket" : "a", clazz)
-                .invoke(connect, o);
+            MethodHandle handle = null;
+            Throwable cause = null;
+
+            try {
+                handle = resolver.resolve();
+            } catch (Throwable t) {
+                cause = t;
+            }
+
+            this.handle = handle;
+            this.cause = cause;
+        }
+
+        boolean isAvailable() {
+            return handle != null;
+        }
+
+        MethodHandle get() {
+            if (handle != null) return handle;
+            throw new IllegalStateException(name + " is not available on this server", cause);
+        }
     }
 }
@@ -1,9 +1,12 @@
 package me.croabeast.beanslib.reflect;
 
 import lombok.experimental.UtilityClass;
+import lombok.var;
 import org.bukkit.entity.Player;
 
-import java.util.function.BiFunction;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 
 import static me.croabeast.beanslib.reflect.ReflectionUtils.*;
 
@@ -14,48 +17,40 @@ public class TitleHandler {
         return Math.round((float) i / 20);
     }
 
-    interface TimesInitialize {
-        Object from(int in, int stay, int out);
-    }
-
-    private enum TitleType {
-        TITLE, SUBTITLE
-    }
-
-    final TimesInitialize TIMES_PACKET_INSTANCE = (in, stay, out) -> {
-        try {
-            return from(null, "PacketPlayOutTitle")
-                    .getDeclaredConstructor(int.class, int.class, int.class)
-                    .newInstance(round(in), round(stay), round(out));
-        }
-        catch (Exception e) {
-            e.printStackTrace();
-            return null;
-        }
-    };
+    /**
+     * Creates the legacy times packet: {@code (int, int, int) -> Object}.
+     */
+    final CachedHandle TIMES_PACKET = new CachedHandle("PacketPlayOutTitle(int, int, int)", () ->
+            LOOKUP.findConstructor(
+                    from(null, "PacketPlayOutTitle"),
+                    MethodType.methodType(void.class, int.class, int.class, int.class)
+            ).asType(MethodType.methodType(Object.class, int.class, int.class, int.class))
+    );
 
-    final BiFunction<Boolean, String, Object> LEGACY_PACKET_INSTANCE = (b, s) -> {
-        TitleType type = b ? TitleType.TITLE : TitleType.SUBTITLE;
-        Object component = COMPONENT_SERIALIZER.apply(s);
+    /**
+     * Creates the legacy title packets: {@code (Object) -> Object}, using the
+     * TITLE and SUBTITLE actions respectively.
+     */
+    final CachedHandle TITLE_PACKET = legacyPacket("TITLE"), SUBTITLE_PACKET = legacyPacket("SUBTITLE");
 
-        try {
+    CachedHandle legacyPacket(String type) {
+        return new CachedHandle("PacketPlayOutTitle(" + type + ")", () -> {
             Class<?> oldEnum = from(
                     VERSION < 8.3 ? "PacketPlayOutTitle$" : null,
                     "EnumTitleAction"
             );
 
-            return from(null, "PacketPlayOutTitle")
-                    .getDeclaredConstructor(oldEnum, BASE_COMP_CLASS)
-                    .newInstance(
-                            oldEnum.getField(type + "").get(null),
-                            component
-                    );
-        }
-        catch (Exception e) {
-            e.printStackTrace();
-            return null;
-        }
-    };
+            var constructor = LOOKUP.findConstructor(
+                    from(null, "PacketPlayOutTitle"),
+                    MethodType.methodType(void.class, oldEnum, BASE_COMP_CLASS)
+            );
+
+            MethodHandle bound = MethodHandles.insertArguments(
+                    constructor, 0, oldEnum.getField(type).get(null));
+
+            return bound.asType(MethodType.methodType(Object.class, Object.class));
+        });
+    }
 
     public boolean send(Player player, String title, String subtitle, int in, int stay, int out) {
         if (VERSION >= 11.0) {
@@ -64,11 +59,20 @@ public class TitleHandler {
         }
 
         try {
-            sendPacket(player, TIMES_PACKET_INSTANCE.from(in, stay, out));
-            sendPacket(player, LEGACY_PACKET_INSTANCE.apply(true, title));
-            sendPacket(player, LEGACY_PACKET_INSTANCE.apply(false, subtitle));
+            Object times = (Object) TIMES_PACKET.get()
+                    .invokeExact(round(in), round(stay), round(out));
+
+            Object titlePacket = (Object) TITLE_PACKET.get()
+                    .invokeExact(COMPONENT_SERIALIZER.apply(title));
+
+            Object subPacket = (Object) SUBTITLE_PACKET.get()
+                    .invokeExact(COMPONENT_SERIALIZER.apply(subtitle));
+
+            sendPacket(player, times);
+            sendPacket(player, titlePacket);
+            sendPacket(player, subPacket);
             return true;
-        } catch (Exception e) {
+        } catch (Throwable e) {
             e.printStackTrace();
             return false;
         }
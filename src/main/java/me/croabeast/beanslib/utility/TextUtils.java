@@ -6,11 +6,13 @@ import com.loohp.interactivechat.api.InteractiveChatAPI;
 import lombok.experimental.UtilityClass;
 import me.clip.placeholderapi.PlaceholderAPI;
 import me.croabeast.beanslib.BeansLib;
+import me.croabeast.beanslib.key.PlayerSnapshot;
 import me.croabeast.beanslib.key.ValueReplacer;
 import me.croabeast.beanslib.reflect.ActionBarHandler;
 import me.croabeast.beanslib.reflect.TitleHandler;
 import net.md_5.bungee.api.chat.ClickEvent;
 import org.apache.commons.lang.StringUtils;
+import org.bukkit.Bukkit;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.ApiStatus;
@@ -39,12 +41,23 @@ public class TextUtils {
      * Parse all the {@link PlaceholderAPI} placeholders of an input string if
      * {@link PlaceholderAPI} is enabled.
      *
+     * <p> Outside the main thread, the placeholders captured in the last {@link PlayerSnapshot}
+     * of the player are replaced first. The rest of placeholders are parsed as usual, unless
+     * {@link PlayerSnapshot#isSnapshotOnly()} is enabled.
+     *
      * <p> Use the <code>apply(Player, String)</code> method to apply it on a string.
      */
     public final BiFunction<Player, String, String> PARSE_PLACEHOLDERAPI = (p, s) -> {
         if (StringUtils.isBlank(s)) return s;
         if (!Exceptions.isPluginEnabled("PlaceholderAPI")) return s;
 
+        if (!Bukkit.isPrimaryThread()) {
+            PlayerSnapshot snapshot = PlayerSnapshot.get(p);
+            if (snapshot != null) s = snapshot.parsePlaceholders(s);
+
+            if (PlayerSnapshot.isSnapshotOnly()) return s;
+        }
+
         return PlaceholderAPI.setPlaceholders(p, s);
     };
 
@@ -0,0 +1,281 @@
+package me.croabeast.beanslib.discord;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link WebhookDispatcher} against a local stub HTTP server.
+ */
+public class WebhookDispatcherTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+    private String base;
+
+    private final Map<String, List<String>> received = new ConcurrentHashMap<>();
+    private final Map<String, List<Long>> times = new ConcurrentHashMap<>();
+
+    private WebhookDispatcher dispatcher;
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange, String body) throws IOException;
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+        dispatcher = new WebhookDispatcher("test-webhooks", 64, WebhookTransport.URL_CONNECTION);
+    }
+
+    @After
+    public void tearDown() {
+        dispatcher.close(1, TimeUnit.SECONDS);
+        server.stop(0);
+    }
+
+    private String route(String path, Handler handler) {
+        received.put(path, Collections.synchronizedList(new ArrayList<>()));
+        times.put(path, Collections.synchronizedList(new ArrayList<>()));
+
+        server.createContext(path, exchange -> {
+            String body = read(exchange.getRequestBody());
+
+            times.get(path).add(System.currentTimeMillis());
+            received.get(path).add(body);
+
+            handler.handle(exchange, body);
+        });
+
+        return base + path;
+    }
+
+    private static String read(InputStream stream) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+
+        int read;
+        while ((read = stream.read(buffer)) != -1) output.write(buffer, 0, read);
+
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+
+        try (OutputStream stream = exchange.getResponseBody()) {
+            stream.write(bytes);
+        }
+    }
+
+    private static WebhookPayload json(int n) {
+        return WebhookPayload.json("{\"n\":" + n + "}");
+    }
+
+    private static Throwable failure(CompletableFuture<?> future) throws InterruptedException, TimeoutException {
+        try {
+            future.get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (CancellationException e) {
+            return e;
+        }
+
+        fail("The request should have failed");
+        return null;
+    }
+
+    @Test
+    public void keepsTheOrderOfEveryUrl() throws Exception {
+        Random random = new Random(7);
+
+        String a = route("/a", (e, b) -> {
+            sleep(random.nextInt(5));
+            respond(e, 204, "");
+        });
+        String b = route("/b", (e, body) -> respond(e, 204, ""));
+
+        List<CompletableFuture<WebhookResponse>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 20; i++) {
+            futures.add(dispatcher.submit(a + "?wait=false", json(i)));
+            futures.add(dispatcher.submit(b, json(i)));
+        }
+
+        for (CompletableFuture<WebhookResponse> future : futures)
+            assertEquals(204, future.get(10, TimeUnit.SECONDS).getStatus());
+
+        for (String path : Arrays.asList("/a", "/b")) {
+            List<String> bodies = received.get(path);
+            assertEquals(20, bodies.size());
+
+            for (int i = 0; i < 20; i++)
+                assertEquals("{\"n\":" + i + "}", bodies.get(i));
+        }
+    }
+
+    @Test
+    public void waitsTheRetryAfterTimeOfARateLimit() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+
+        String url = route("/limited", (e, b) -> {
+            if (count.getAndIncrement() == 0)
+                respond(e, 429, "{\"retry_after\":0.4,\"global\":false}");
+            else
+                respond(e, 204, "");
+        });
+
+        assertEquals(204, dispatcher.submit(url, json(1)).get(10, TimeUnit.SECONDS).getStatus());
+
+        List<Long> sent = times.get("/limited");
+        assertEquals(2, sent.size());
+        assertTrue(sent.get(1) - sent.get(0) >= 350);
+    }
+
+    @Test
+    public void delaysEveryUrlOnAGlobalRateLimit() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+
+        String first = route("/first", (e, b) -> {
+            if (count.getAndIncrement() == 0)
+                respond(e, 429, "{\"retry_after\":0.5,\"global\":true}");
+            else
+                respond(e, 204, "");
+        });
+        String second = route("/second", (e, b) -> respond(e, 204, ""));
+
+        CompletableFuture<WebhookResponse> limited = dispatcher.submit(first, json(1));
+        Thread.sleep(100);
+
+        long submitted = System.currentTimeMillis();
+        CompletableFuture<WebhookResponse> other = dispatcher.submit(second, json(2));
+
+        assertEquals(204, other.get(10, TimeUnit.SECONDS).getStatus());
+        assertEquals(204, limited.get(10, TimeUnit.SECONDS).getStatus());
+
+        long limitedAt = times.get("/first").get(0);
+        assertTrue(times.get("/second").get(0) - limitedAt >= 450);
+        assertTrue(times.get("/second").get(0) >= submitted);
+    }
+
+    @Test
+    public void storesServerErrorsInTheOutboxAfterTheLastAttempt() throws Exception {
+        String url = route("/broken", (e, b) -> respond(e, 500, "{}"));
+
+        // the outbox never delivers, so the stored request stays pending
+        WebhookOutbox outbox = new WebhookOutbox(folder.newFile("outbox.dat"), (m, u, p) -> {
+            throw new IOException("Offline");
+        });
+        dispatcher.setOutbox(outbox);
+
+        try {
+            Throwable error = failure(dispatcher.submit(url, json(1)));
+
+            assertTrue(error instanceof WebhookException);
+            assertEquals(500, ((WebhookException) error).getStatus());
+
+            assertEquals(3, received.get("/broken").size());
+            assertEquals(1, outbox.getPending());
+        } finally {
+            outbox.close();
+        }
+    }
+
+    @Test
+    public void neverStoresRequestsThatAreNotDurable() throws Exception {
+        String url = route("/edit", (e, b) -> respond(e, 503, "{}"));
+
+        WebhookOutbox outbox = new WebhookOutbox(folder.newFile("outbox.dat"), (m, u, p) -> {
+            throw new IOException("Offline");
+        });
+        dispatcher.setOutbox(outbox);
+
+        try {
+            assertTrue(failure(dispatcher.submit("POST", url, json(1), false)) instanceof WebhookException);
+            assertEquals(0, outbox.getPending());
+        } finally {
+            outbox.close();
+        }
+    }
+
+    @Test
+    public void drainsThePendingRequestsOnClose() throws Exception {
+        String url = route("/slow", (e, b) -> {
+            sleep(50);
+            respond(e, 204, "");
+        });
+
+        List<CompletableFuture<WebhookResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) futures.add(dispatcher.submit(url, json(i)));
+
+        dispatcher.close(10, TimeUnit.SECONDS);
+
+        assertFalse(dispatcher.isOpen());
+        assertEquals(0, dispatcher.getPending());
+
+        for (CompletableFuture<WebhookResponse> future : futures) {
+            assertTrue(future.isDone());
+            assertEquals(204, future.get().getStatus());
+        }
+
+        assertEquals(5, received.get("/slow").size());
+        assertTrue(failure(dispatcher.submit(url, json(5))) instanceof RejectedExecutionException);
+    }
+
+    @Test
+    public void storesTheRequestsThatWereNotSentInTimeOnClose() throws Exception {
+        String url = route("/waiting", (e, b) -> respond(e, 429, "{\"retry_after\":60}"));
+
+        WebhookOutbox outbox = new WebhookOutbox(folder.newFile("outbox.dat"), (m, u, p) -> {
+            throw new IOException("Offline");
+        });
+        dispatcher.setOutbox(outbox);
+
+        try {
+            CompletableFuture<WebhookResponse> first = dispatcher.submit(url, json(1));
+            CompletableFuture<WebhookResponse> second = dispatcher.submit(url, json(2));
+
+            Thread.sleep(200);
+            dispatcher.close(200, TimeUnit.MILLISECONDS);
+
+            assertTrue(failure(first) instanceof CancellationException);
+            assertTrue(failure(second) instanceof CancellationException);
+
+            assertEquals(2, outbox.getPending());
+        } finally {
+            outbox.close();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}